@@ -17,12 +17,16 @@
 
 package de.bmw.partchain.dis;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @SpringBootApplication
 public class DisApplication
 {
@@ -32,7 +36,13 @@ public class DisApplication
     }
 
   @Bean
-  public RestTemplate restTemplate(RestTemplateBuilder builder) {
-    return builder.build();
+  public RestTemplate restTemplate(RestTemplateBuilder builder, HttpComponentsClientHttpRequestFactory httpRequestFactory,
+                                   @Value("${cdq.bpn.connect-timeout-millis:2000}") long connectTimeoutMillis,
+                                   @Value("${cdq.bpn.read-timeout-millis:5000}") long readTimeoutMillis) {
+    return builder
+      .requestFactory(() -> httpRequestFactory)
+      .setConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
+      .setReadTimeout(Duration.ofMillis(readTimeoutMillis))
+      .build();
   }
 }
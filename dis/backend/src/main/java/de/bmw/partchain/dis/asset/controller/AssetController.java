@@ -19,9 +19,17 @@ package de.bmw.partchain.dis.asset.controller;
 import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
 import de.bmw.partchain.dis.asset.model.response.AssetFailType;
 import de.bmw.partchain.dis.asset.model.response.AssetFailedReportResponseDto;
+import de.bmw.partchain.dis.asset.model.response.AssetIngestJobResponseDto;
 import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
-import de.bmw.partchain.dis.asset.service.AssetIngestReportService;
-import de.bmw.partchain.dis.asset.service.AssetService;
+import de.bmw.partchain.dis.asset.service.AssetBulkService;
+import de.bmw.partchain.dis.asset.service.AssetIngestJobService;
+import de.bmw.partchain.dis.asset.service.AssetIngestPipeline;
+import de.bmw.partchain.dis.asset.service.AssetIngestService;
+import de.bmw.partchain.dis.asset.service.AssetStreamReadException;
+import de.bmw.partchain.dis.asset.service.AssetStreamReader;
+import de.bmw.partchain.dis.asset.service.TenantAdmissionService;
+import de.bmw.partchain.dis.resilience.LoadShedException;
+import de.bmw.partchain.dis.resilience.RateLimitExceededException;
 import de.bmw.partchain.dis.security.AuthenticationFacadeImpl;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
@@ -35,22 +43,23 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
-import javax.validation.ConstraintViolation;
-import javax.validation.Validation;
-import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.springframework.http.ResponseEntity.ok;
 import static org.springframework.http.ResponseEntity.status;
@@ -71,15 +80,24 @@ import static org.springframework.http.ResponseEntity.status;
 @Slf4j
 public class AssetController {
     public static final String DEFAULT_ASSET_LOG_MESSAGE = "[DIS][%s] DESCRIPTION: %s at INDEX: %s";
-    private final AssetService assetService;
-    private final AssetIngestReportService failedAssetReportService;
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final int STREAM_ADMISSION_CHUNK = 100;
+    private final AssetIngestService assetIngestService;
+    private final AssetBulkService assetBulkService;
+    private final AssetIngestJobService assetIngestJobService;
+    private final AssetStreamReader assetStreamReader;
     private final AuthenticationFacadeImpl authenticationFacade;
+    private final TenantAdmissionService admissionService;
 
-    public AssetController(AssetService assetService, AssetIngestReportService failedAssetService,
-                           AuthenticationFacadeImpl authenticationFacade) {
-        this.assetService = assetService;
-        this.failedAssetReportService = failedAssetService;
+    public AssetController(AssetIngestService assetIngestService, AssetBulkService assetBulkService,
+                           AssetIngestJobService assetIngestJobService, AssetStreamReader assetStreamReader,
+                           AuthenticationFacadeImpl authenticationFacade, TenantAdmissionService admissionService) {
+        this.assetIngestService = assetIngestService;
+        this.assetBulkService = assetBulkService;
+        this.assetIngestJobService = assetIngestJobService;
+        this.assetStreamReader = assetStreamReader;
         this.authenticationFacade = authenticationFacade;
+        this.admissionService = admissionService;
     }
 
     @RequestMapping(consumes = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST, path = "bulk")
@@ -88,7 +106,8 @@ public class AssetController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200",
-                    description = "All the assets are valid and processed with success",
+                    description = "All the assets are valid and processed with success, assets published " +
+                            "unchanged before are listed as skipped",
                     content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "206",
                     description = "Partial assets are valid and successfuly processed and partial invalid asset or " +
@@ -100,31 +119,139 @@ public class AssetController {
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = SentToLedgerResponseDto.class))}),
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "429", description = "The tenant is over its budget, retry after the " +
+                    "seconds given in the Retry-After header", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "403", description = "Forbidden",
-                    content = {@Content(mediaType = "application/json")})})
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "503", description = "The service is overloaded, retry after the " +
+                    "seconds given in the Retry-After header", content = @Content(schema = @Schema()))})
     public ResponseEntity<SentToLedgerResponseDto> bulkPost(@RequestBody List<CatenaXAssetRequestDto> request) {
         SentToLedgerResponseDto responseDto = new SentToLedgerResponseDto();
         String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
         responseDto.setMspId(mspId);
+        admissionService.admitAssets(mspId, request.size());
 
-        for (CatenaXAssetRequestDto asset : request) {
-            int index = request.indexOf(asset);
-            List<String> failReasons = validateAsset(asset);
+        AssetIngestPipeline pipeline = assetBulkService.open(responseDto);
+        pipeline.indexRequest(request);
+        pipeline.prefetch(request);
+        for (int index : pipeline.submissionOrder()) {
+            pipeline.submit(index, request.get(index));
+        }
+
+        return buildResponse(pipeline.complete());
+    }
 
-            if (failReasons.isEmpty()) {
-                processValidAsset(responseDto, index, asset);
-            } else {
-                responseDto.addFailedAsset(index, AssetFailType.VALIDATION,
-                        failReasons);
+    @RequestMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE},
+            method = RequestMethod.POST, path = "bulk/stream")
+    @Operation(summary = "Receives a JSON array or newline delimited JSON stream of assets that will be ingested " +
+            "while the request body is read",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "All the assets are valid and processed with success, assets published " +
+                            "unchanged before are listed as skipped",
+                    content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "206",
+                    description = "Partial assets are valid and successfuly processed and partial invalid asset or " +
+                            "fail the process",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SentToLedgerResponseDto.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "All the assets are invalid or process",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SentToLedgerResponseDto.class))}),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "429", description = "The tenant is over its budget, retry after the " +
+                    "seconds given in the Retry-After header", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "503", description = "The service is overloaded, retry after the " +
+                    "seconds given in the Retry-After header", content = @Content(schema = @Schema()))})
+    public ResponseEntity<SentToLedgerResponseDto> bulkStreamPost(InputStream request) throws IOException {
+        SentToLedgerResponseDto responseDto = new SentToLedgerResponseDto();
+        String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
+        responseDto.setMspId(mspId);
+
+        AssetIngestPipeline pipeline = assetBulkService.open(responseDto);
+        // Index of the asset being read or submitted
+        int[] currentIndex = {0};
+        try {
+            assetStreamReader.read(request, (asset, index) -> {
+                currentIndex[0] = index;
+                if (index % STREAM_ADMISSION_CHUNK == 0) {
+                    admissionService.paceAssets(mspId, STREAM_ADMISSION_CHUNK);
+                }
+                pipeline.submit(index, asset);
+                currentIndex[0] = index + 1;
+            });
+        } catch (AssetStreamReadException exception) {
+            pipeline.fail(exception.getIndex(), AssetFailType.VALIDATION,
+                    Collections.singletonList(exception.getMessage()));
+        } catch (IOException | RuntimeException exception) {
+            // The assets already sent still have to be reported and the ledger transaction ended
+            pipeline.fail(currentIndex[0], AssetFailType.OTHER,
+                    Collections.singletonList("Processing the request failed: " + exception.getMessage()));
+            try {
+                pipeline.complete();
+            } catch (RuntimeException completeException) {
+                exception.addSuppressed(completeException);
             }
+            throw exception;
         }
-        if (!responseDto.getFailedAssets()
-                .isEmpty()) {
-            failedAssetReportService.publishAssetIngestReport(responseDto);
+
+        return buildResponse(pipeline.complete());
+    }
+
+    @RequestMapping(consumes = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST, path = "bulk/async")
+    @Operation(summary = "Receives a list of assets that will be ingested in the background, the progress can be " +
+            "polled with the returned requestProcessId",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202",
+                    description = "The assets are accepted and will be processed",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = AssetIngestJobResponseDto.class))}),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "429", description = "The tenant is over its budget, retry after the " +
+                    "seconds given in the Retry-After header", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "503", description = "Too many bulk jobs in progress or the service is overloaded",
+                    content = @Content(schema = @Schema()))})
+    public ResponseEntity<AssetIngestJobResponseDto> bulkAsyncPost(@RequestBody List<CatenaXAssetRequestDto> request) {
+        String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
+        admissionService.admitAssets(mspId, request.size());
+
+        try {
+            return status(HttpStatus.ACCEPTED).body(assetIngestJobService.submit(request, mspId));
+        } catch (RejectedExecutionException exception) {
+            log.warn(String.format("[DIS][%s] Bulk job rejected: %s", mspId, exception.getMessage()));
+            return status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
+    }
 
+    @RequestMapping(method = RequestMethod.GET, path = "jobs/{requestProcessId}")
+    @Operation(summary = "Returns the progress and, once completed, the result of an asynchronous bulk ingest",
+            security = @SecurityRequirement(name = "Authorization")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200",
+                    description = "The current state of the job",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = AssetIngestJobResponseDto.class))}),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job",
+                    content = @Content(schema = @Schema()))})
+    public ResponseEntity<AssetIngestJobResponseDto> getJob(@PathVariable String requestProcessId) {
+        String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
 
-        return buildResponse(responseDto);
+        return assetIngestJobService.findById(requestProcessId, mspId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @RequestMapping(consumes = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.POST)
@@ -140,51 +267,44 @@ public class AssetController {
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = SentToLedgerResponseDto.class))}),
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "429", description = "The tenant is over its budget, retry after the " +
+                    "seconds given in the Retry-After header", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "403", description = "Forbidden",
-                    content = {@Content(mediaType = "application/json")})})
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "503", description = "The service is overloaded, retry after the " +
+                    "seconds given in the Retry-After header", content = @Content(schema = @Schema()))})
     public ResponseEntity<SentToLedgerResponseDto> post(@RequestBody CatenaXAssetRequestDto asset) {
         SentToLedgerResponseDto responseDto = new SentToLedgerResponseDto();
         String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
         responseDto.setMspId(mspId);
+        admissionService.admitAssets(mspId, 1);
 
-        List<String> failReasons = validateAsset(asset);
-
-        if (failReasons.isEmpty()) {
-            processValidAsset(responseDto, 0, asset);
-        } else {
-            responseDto.addFailedAsset(0, AssetFailType.VALIDATION, failReasons);
-        }
-
-        if (!responseDto.getFailedAssets().isEmpty()) {
-            failedAssetReportService.publishAssetIngestReport(responseDto);
-        }
+        assetIngestService.ingest(responseDto, 0, asset);
+        assetIngestService.publishFailedAssets(responseDto);
 
         return buildResponse(responseDto);
     }
 
-    private List<String> validateAsset(CatenaXAssetRequestDto asset) {
-        Validator validator = Validation.buildDefaultValidatorFactory()
-                .getValidator();
-
-        Set<ConstraintViolation<CatenaXAssetRequestDto>> violations = validator.validate(asset);
-        return violations.stream()
-                .map(ConstraintViolation::getMessage)
-                .collect(Collectors.toList());
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Void> rateLimitExceeded(RateLimitExceededException exception) {
+        log.warn(String.format("[DIS] Request rejected: %s", exception.getMessage()));
+        return status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(exception.getRetryAfterSeconds()))
+                .build();
     }
 
-    private void processValidAsset(SentToLedgerResponseDto responseDto, int index, CatenaXAssetRequestDto asset) {
-        try {
-            assetService.sendToLedger(asset, responseDto.getRequestProcessId());
-            responseDto.addProcessedAssetIndex(index);
-        } catch (Exception exception) {
-            responseDto.addFailedAsset(index, AssetFailType.OTHER,
-                    Collections.singletonList(exception.getMessage()));
-        }
+    @ExceptionHandler(LoadShedException.class)
+    public ResponseEntity<Void> loadShed(LoadShedException exception) {
+        log.warn(String.format("[DIS] Request shed: %s", exception.getMessage()));
+        return status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
     }
 
     private ResponseEntity<SentToLedgerResponseDto> buildResponse(SentToLedgerResponseDto responseDto) {
-        boolean hasValidAssets = !responseDto.getProcessedAssets()
-                .isEmpty();
+        // Skipped assets are already on the ledger unchanged, so they count as valid
+        boolean hasValidAssets = !responseDto.getProcessedAssets().isEmpty()
+                || !responseDto.getSkippedAssets().isEmpty();
         boolean hasViolations = !responseDto.getFailedAssets()
                 .isEmpty();
         logExceptions(responseDto.getFailedAssets());
@@ -193,6 +313,8 @@ public class AssetController {
             return status(HttpStatus.BAD_REQUEST).body(responseDto);
         } else if (hasValidAssets && hasViolations) {
             return status(HttpStatus.PARTIAL_CONTENT).body(responseDto);
+        } else if (!responseDto.getSkippedAssets().isEmpty()) {
+            return ok().body(responseDto);
         } else {
             return ok().build();
         }
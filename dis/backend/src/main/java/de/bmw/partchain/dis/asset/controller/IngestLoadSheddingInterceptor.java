@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.controller;
+
+import de.bmw.partchain.dis.asset.service.IngestLoadSheddingService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds ingest requests before their body is read. A rejection is thrown, so that it is answered by the exception
+ * handler of the controller.
+ */
+@Component
+public class IngestLoadSheddingInterceptor implements HandlerInterceptor {
+    private static final String CHARGED_BYTES = IngestLoadSheddingInterceptor.class.getName() + ".bytes";
+
+    private final IngestLoadSheddingService loadSheddingService;
+
+    public IngestLoadSheddingInterceptor(IngestLoadSheddingService loadSheddingService) {
+        this.loadSheddingService = loadSheddingService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if ("POST".equals(request.getMethod())) {
+            request.setAttribute(CHARGED_BYTES, loadSheddingService.enter(request.getContentLengthLong()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object bytes = request.getAttribute(CHARGED_BYTES);
+        if (bytes != null) {
+            loadSheddingService.exit((Long) bytes);
+        }
+    }
+}
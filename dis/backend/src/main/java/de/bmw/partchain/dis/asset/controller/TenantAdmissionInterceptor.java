@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.controller;
+
+import de.bmw.partchain.dis.asset.service.TenantAdmissionService;
+import de.bmw.partchain.dis.security.AuthenticationFacadeImpl;
+import org.keycloak.KeycloakPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Limits the concurrent bulk requests per tenant. A rejection is thrown, so that it is answered by the exception
+ * handler of the controller.
+ */
+@Component
+public class TenantAdmissionInterceptor implements HandlerInterceptor {
+    private static final String ADMITTED_MSP_ID = TenantAdmissionInterceptor.class.getName() + ".mspId";
+
+    private final TenantAdmissionService admissionService;
+    private final AuthenticationFacadeImpl authenticationFacade;
+
+    public TenantAdmissionInterceptor(TenantAdmissionService admissionService,
+                                      AuthenticationFacadeImpl authenticationFacade) {
+        this.admissionService = admissionService;
+        this.authenticationFacade = authenticationFacade;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof KeycloakPrincipal)) {
+            return true;
+        }
+        String mspId = authenticationFacade.getOtherClaim(AuthenticationFacadeImpl.MSP_ID);
+        if (admissionService.tryEnterRequest(mspId)) {
+            request.setAttribute(ADMITTED_MSP_ID, mspId);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object mspId = request.getAttribute(ADMITTED_MSP_ID);
+        if (mspId != null) {
+            admissionService.exitRequest((String) mspId);
+        }
+    }
+}
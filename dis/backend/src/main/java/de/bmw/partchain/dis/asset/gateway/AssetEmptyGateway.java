@@ -22,6 +22,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "ledger.gateway", havingValue = "local")
@@ -33,8 +37,45 @@ public class AssetEmptyGateway implements AssetGateway
     }
 
     @Override
-    public void sendToLedger(Asset asset)
+    public CompletableFuture<Void> sendToLedger(Asset asset)
     {
         log.info(String.format("Sent to ledger asset serialNumber '%s'", asset.getSerialNumberManufacturer()));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public LedgerTransaction beginTransaction()
+    {
+        List<Asset> assets = new CopyOnWriteArrayList<>();
+        List<Runnable> afterCommit = new CopyOnWriteArrayList<>();
+        return new LedgerTransaction()
+        {
+            @Override
+            public CompletableFuture<Void> sendToLedger(Asset asset)
+            {
+                assets.add(asset);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public LedgerTransaction beginTransaction()
+            {
+                throw new IllegalStateException("Ledger transactions can not be nested");
+            }
+
+            @Override
+            public void commit(Runnable inTransaction)
+            {
+                assets.forEach(AssetEmptyGateway.this::sendToLedger);
+                inTransaction.run();
+                afterCommit.forEach(Runnable::run);
+            }
+
+            @Override
+            public void afterCommit(Runnable action)
+            {
+                afterCommit.add(action);
+            }
+        };
     }
 }
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.asset.model.gateway.AssetEnrichmentPatch;
+import de.bmw.partchain.dis.asset.model.gateway.GatewayPayloadCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "enrichment.gateway", havingValue = "kafka", matchIfMissing = true)
+public class AssetEnrichmentKafkaGateway implements AssetEnrichmentGateway
+{
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final GatewayPayloadCodec payloadCodec;
+
+    @Value(value = "${cdq.bpn.enrichment.topic:assetEnrichment}")
+    private String topic;
+
+    public AssetEnrichmentKafkaGateway(KafkaTemplate<String, byte[]> kafkaTemplate, GatewayPayloadCodec payloadCodec)
+    {
+        this.kafkaTemplate = kafkaTemplate;
+        this.payloadCodec = payloadCodec;
+        log.info("[INIT LOAD] AssetEnrichmentKafkaGateway initialized.");
+    }
+
+    @Override
+    public void publishEnrichment(AssetEnrichmentPatch patch)
+    {
+        kafkaTemplate.send(topic, patch.getSerialNumberManufacturer(), payloadCodec.encode(patch));
+    }
+}
@@ -19,7 +19,14 @@ package de.bmw.partchain.dis.asset.gateway;
 
 import de.bmw.partchain.dis.asset.model.gateway.Asset;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface AssetGateway
 {
-    void sendToLedger(Asset asset);
+    /**
+     * @return completes once the ledger acknowledged the asset or it was stored in the ledger outbox
+     */
+    CompletableFuture<Void> sendToLedger(Asset asset);
+
+    LedgerTransaction beginTransaction();
 }
@@ -17,6 +17,7 @@
 
 package de.bmw.partchain.dis.asset.gateway;
 
+import de.bmw.partchain.dis.asset.model.gateway.AggregatedAssetIngestReport;
 import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -38,4 +39,12 @@ public class AssetImportReportEmptyGateway implements AssetImportReportGateway
     {
         log.info(String.format("Sent to kafka asset fail report for request process id: %s", assetFailReport.getRequestProcessId()));
     }
+
+    @Override
+    public void publishAggregatedAssetIngestReport(AggregatedAssetIngestReport aggregatedAssetIngestReport)
+    {
+        log.info(String.format("Sent to kafka aggregated asset fail report %d/%d for request process id: %s",
+                aggregatedAssetIngestReport.getChunkIndex() + 1, aggregatedAssetIngestReport.getChunkCount(),
+                aggregatedAssetIngestReport.getRequestProcessId()));
+    }
 }
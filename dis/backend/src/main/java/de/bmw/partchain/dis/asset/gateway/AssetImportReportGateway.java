@@ -17,9 +17,12 @@
 
 package de.bmw.partchain.dis.asset.gateway;
 
+import de.bmw.partchain.dis.asset.model.gateway.AggregatedAssetIngestReport;
 import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
 
 public interface AssetImportReportGateway
 {
     void publishAssetIngestReport(AssetIngestReport assetIngestReport);
+
+    void publishAggregatedAssetIngestReport(AggregatedAssetIngestReport aggregatedAssetIngestReport);
 }
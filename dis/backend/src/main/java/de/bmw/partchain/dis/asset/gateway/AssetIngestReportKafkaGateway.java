@@ -17,8 +17,11 @@
 
 package de.bmw.partchain.dis.asset.gateway;
 
+import de.bmw.partchain.dis.asset.model.gateway.AggregatedAssetIngestReport;
 import de.bmw.partchain.dis.asset.model.gateway.AssetIngestReport;
+import de.bmw.partchain.dis.asset.model.gateway.GatewayPayloadCodec;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
@@ -27,17 +30,31 @@ import org.springframework.stereotype.Service;
 @Service
 @ConditionalOnProperty(name = "airs.gateway", havingValue = "kafka",matchIfMissing = true)
 public class AssetIngestReportKafkaGateway implements AssetImportReportGateway{
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final GatewayPayloadCodec payloadCodec;
 
-    public AssetIngestReportKafkaGateway(KafkaTemplate<String, String> kafkaTemplate)
+    @Value(value = "${airs.report.aggregated-topic:failedAssetReportAggregated}")
+    private String aggregatedTopic;
+
+    public AssetIngestReportKafkaGateway(KafkaTemplate<String, byte[]> kafkaTemplate, GatewayPayloadCodec payloadCodec)
     {
         this.kafkaTemplate = kafkaTemplate;
+        this.payloadCodec = payloadCodec;
         log.info("[INIT LOAD] AssetIngestReportKafkaGateway initialized.");
 
     }
 
     public void publishAssetIngestReport(AssetIngestReport assetIngestReport)
     {
-        kafkaTemplate.send("failedAssetReport", assetIngestReport.toString());
+        kafkaTemplate.send("failedAssetReport", payloadCodec.encode(assetIngestReport));
+    }
+
+    /**
+     * Keyed by the request process id, so the chunks of a request stay in order.
+     */
+    public void publishAggregatedAssetIngestReport(AggregatedAssetIngestReport aggregatedAssetIngestReport)
+    {
+        kafkaTemplate.send(aggregatedTopic, aggregatedAssetIngestReport.getRequestProcessId(),
+                payloadCodec.encode(aggregatedAssetIngestReport));
     }
 }
@@ -18,27 +18,249 @@
 package de.bmw.partchain.dis.asset.gateway;
 
 import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.gateway.GatewayPayloadCodec;
+import de.bmw.partchain.dis.asset.model.gateway.WireFormat;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "ledger.gateway", havingValue = "kafka",matchIfMissing = true)
 public class AssetKafkaGateway implements AssetGateway
 {
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final GatewayPayloadCodec payloadCodec;
+    private final WireFormat defaultWireFormat;
+    private final Map<String, WireFormat> tenantWireFormats;
+    private final LedgerKeyStrategy keyStrategy;
+    private final LedgerOutbox outbox;
+    private final double outboxBufferThreshold;
+    private final Object routingLock = new Object();
+    // Last record per key which is neither acknowledged nor in the outbox, only added under the routing lock
+    private final Map<String, CompletableFuture<Void>> pendingKeys = new ConcurrentHashMap<>();
+    // Routes the records which waited for their key, not on the producer thread completing the previous record
+    private final Executor routingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dis-ledger-routing");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Metric bufferAvailableBytes;
+    private volatile Metric bufferTotalBytes;
 
-    public AssetKafkaGateway(KafkaTemplate<String, String> kafkaTemplate)
+    /**
+     * @param tenantWireFormats comma separated mspId:format pairs of the tenants not using the default format
+     * @param outbox present with ledger.outbox.enabled
+     * @param outboxBufferThreshold share of the producer buffer below which records go to the outbox
+     */
+    public AssetKafkaGateway(KafkaTemplate<String, byte[]> kafkaTemplate, GatewayPayloadCodec payloadCodec,
+                             @Value(value = "${ledger.wire-format.default:json}") String defaultWireFormat,
+                             @Value(value = "${ledger.wire-format.tenants:}") String tenantWireFormats,
+                             @Value(value = "${ledger.key-strategy:none}") String keyStrategy,
+                             Optional<LedgerOutbox> outbox,
+                             @Value(value = "${ledger.outbox.buffer-threshold:0.1}") double outboxBufferThreshold)
     {
         this.kafkaTemplate = kafkaTemplate;
+        this.payloadCodec = payloadCodec;
+        this.defaultWireFormat = WireFormat.of(defaultWireFormat);
+        this.tenantWireFormats = parseTenantWireFormats(tenantWireFormats);
+        this.keyStrategy = LedgerKeyStrategy.of(keyStrategy);
+        this.outbox = outbox.orElse(null);
+        this.outboxBufferThreshold = outboxBufferThreshold;
         log.info("[INIT LOAD] LedgerKafkaGateway initialized.");
     }
 
+    /**
+     * With the outbox a record goes there instead while the outbox still holds records, which keeps them in order,
+     * while the producer buffer is nearly exhausted, or when Kafka failed it with a retriable error. A record is only
+     * routed once the previous record of its key was acknowledged or stored in the outbox, so a record failing late
+     * can not be overtaken by a later record of the same key.
+     */
+    @Override
+    public CompletableFuture<Void> sendToLedger(Asset asset)
+    {
+        ProducerRecord<String, byte[]> record = toRecord(asset);
+        if (outbox == null) {
+            return kafkaTemplate.send(record).completable().thenApply(result -> null);
+        }
+        String key = record.key();
+        if (key == null) {
+            return route(record);
+        }
+        synchronized (routingLock) {
+            CompletableFuture<Void> previous = pendingKeys.get(key);
+            CompletableFuture<Void> sent = previous == null ? route(record)
+                    : previous.handle((result, exception) -> null)
+                            .thenComposeAsync(ignored -> route(record), routingExecutor);
+            if (!sent.isDone()) {
+                pendingKeys.put(key, sent);
+                // Completes on the producer thread, which must not wait for the routing lock held by a blocked send
+                sent.whenComplete((result, exception) -> pendingKeys.remove(key, sent));
+            }
+            return sent;
+        }
+    }
+
+    /**
+     * Checks the outbox and hands the record to the producer under one lock, so that no record is sent directly
+     * while another one is appended to the outbox.
+     */
+    private CompletableFuture<Void> route(ProducerRecord<String, byte[]> record)
+    {
+        CompletableFuture<?> sent;
+        synchronized (routingLock) {
+            if (!outbox.isEmpty() || isProducerBufferSaturated()) {
+                outbox.append(record);
+                return CompletableFuture.completedFuture(null);
+            }
+            try {
+                sent = kafkaTemplate.send(record).completable();
+            } catch (KafkaException exception) {
+                appendToOutboxIfRetriable(record, exception);
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        return sent.handle((result, exception) -> {
+            if (exception != null) {
+                appendToOutboxIfRetriable(record, exception);
+            }
+            return null;
+        });
+    }
+
+    private void appendToOutboxIfRetriable(ProducerRecord<String, byte[]> record, Throwable exception)
+    {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                log.warn("Kafka unavailable, writing ledger record of topic {} to the outbox", record.topic());
+                outbox.append(record);
+                return;
+            }
+        }
+        throw exception instanceof CompletionException ? (CompletionException) exception
+                : new CompletionException(exception);
+    }
+
+    private boolean isProducerBufferSaturated()
+    {
+        if (bufferTotalBytes == null) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : kafkaTemplate.metrics().entrySet()) {
+                if ("producer-metrics".equals(metric.getKey().group())) {
+                    if ("buffer-available-bytes".equals(metric.getKey().name())) {
+                        bufferAvailableBytes = metric.getValue();
+                    } else if ("buffer-total-bytes".equals(metric.getKey().name())) {
+                        bufferTotalBytes = metric.getValue();
+                    }
+                }
+            }
+            if (bufferTotalBytes == null || bufferAvailableBytes == null) {
+                return false;
+            }
+        }
+        double available = ((Number) bufferAvailableBytes.metricValue()).doubleValue();
+        double total = ((Number) bufferTotalBytes.metricValue()).doubleValue();
+        return available < total * outboxBufferThreshold;
+    }
+
+    /**
+     * Needs ledger.transactional, which makes the producer factory transactional.
+     */
     @Override
-    public void sendToLedger(Asset asset)
+    public LedgerTransaction beginTransaction()
+    {
+        if (!kafkaTemplate.isTransactional()) {
+            throw new IllegalStateException("Ledger transactions are not enabled");
+        }
+        return new KafkaLedgerTransaction();
+    }
+
+    private ProducerRecord<String, byte[]> toRecord(Asset asset)
+    {
+        WireFormat wireFormat = tenantWireFormats.getOrDefault(asset.getMspId(), defaultWireFormat);
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(asset.getMspId(), keyStrategy.keyOf(asset),
+                payloadCodec.encode(asset, wireFormat));
+        record.headers().add(WireFormat.HEADER, wireFormat.getHeaderValue());
+        return record;
+    }
+
+    private class KafkaLedgerTransaction implements LedgerTransaction
+    {
+        private final Queue<ProducerRecord<String, byte[]>> records = new ConcurrentLinkedQueue<>();
+        private final Queue<Runnable> afterCommit = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public CompletableFuture<Void> sendToLedger(Asset asset)
+        {
+            records.add(toRecord(asset));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public LedgerTransaction beginTransaction()
+        {
+            throw new IllegalStateException("Ledger transactions can not be nested");
+        }
+
+        /**
+         * The other gateways share the template, so their sends on this thread join the transaction.
+         */
+        @Override
+        public void commit(Runnable inTransaction)
+        {
+            kafkaTemplate.executeInTransaction(operations -> {
+                records.forEach(operations::send);
+                inTransaction.run();
+                return null;
+            });
+            log.debug("Committed {} ledger records.", records.size());
+            // The records are published, so a failing action must not let the caller treat them as aborted
+            for (Runnable action : afterCommit) {
+                try {
+                    action.run();
+                } catch (RuntimeException exception) {
+                    log.warn("Action after ledger commit failed: {}", exception.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void afterCommit(Runnable action)
+        {
+            afterCommit.add(action);
+        }
+    }
+
+    private static Map<String, WireFormat> parseTenantWireFormats(String tenantWireFormats)
     {
-         kafkaTemplate.send(asset.getMspId(), asset.toString());
+        Map<String, WireFormat> wireFormats = new HashMap<>();
+        for (String tenantWireFormat : tenantWireFormats.split(",")) {
+            if (tenantWireFormat.trim().isEmpty()) {
+                continue;
+            }
+            String[] mspIdAndFormat = tenantWireFormat.split(":");
+            if (mspIdAndFormat.length != 2) {
+                throw new IllegalArgumentException("Invalid ledger wire format of tenant: " + tenantWireFormat);
+            }
+            wireFormats.put(mspIdAndFormat[0].trim(), WireFormat.of(mspIdAndFormat[1]));
+        }
+        return wireFormats;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Selects the key of the ledger records, all records with the same key are kept in order on one partition.
+ */
+public enum LedgerKeyStrategy
+{
+    /**
+     * No key, records are spread over all partitions.
+     */
+    NONE(asset -> null),
+    /**
+     * Orders the records per part.
+     */
+    SERIAL_NUMBER(Asset::getSerialNumberManufacturer),
+    /**
+     * Orders the records per part number, i.e. all parts of a part number end up on the same partition.
+     */
+    PART_NUMBER(Asset::getPartNumberManufacturer);
+
+    private final Function<Asset, String> key;
+
+    LedgerKeyStrategy(Function<Asset, String> key)
+    {
+        this.key = key;
+    }
+
+    public String keyOf(Asset asset)
+    {
+        return key.apply(asset);
+    }
+
+    public static LedgerKeyStrategy of(String value)
+    {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
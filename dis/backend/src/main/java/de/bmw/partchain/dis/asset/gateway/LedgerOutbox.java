@@ -0,0 +1,421 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append only write ahead log of ledger records which could not be handed to Kafka. The log is split into segment
+ * files named by their sequence number, an entry is its length, the CRC32 of its body and the body. A cursor file
+ * holds the position up to which the records were acknowledged by Kafka, fully acknowledged segments are deleted.
+ * On startup a torn entry at the end of the last segment is cut off, and a cursor which is torn or points behind the
+ * existing segments is replaced by the start of the first segment, so its records are replayed again. Appends may come from any thread, reading and
+ * acknowledging is meant for a single replayer thread.
+ */
+@Slf4j
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=Ledger,name=Outbox")
+public class LedgerOutbox implements AutoCloseable
+{
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CURSOR_FILE = "cursor";
+    private static final int ENTRY_HEADER_BYTES = 8;
+    private static final int CURSOR_BYTES = 16;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final NavigableSet<Long> segments = new TreeSet<>();
+    private final LongAdder appended = new LongAdder();
+
+    private FileChannel activeSegment;
+    private volatile Position writePosition;
+    private volatile Position ackPosition;
+    private Position readPosition;
+
+    /**
+     * @param segmentBytes size after which a new segment is started
+     * @param fsync whether every append and acknowledgement is forced to disk before it counts as written
+     */
+    public LedgerOutbox(Path directory, long segmentBytes, boolean fsync) throws IOException
+    {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        if (segments.isEmpty()) {
+            segments.add(0L);
+        }
+        long lastSegment = segments.last();
+        activeSegment = FileChannel.open(segmentFile(lastSegment), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        long validBytes = validBytes(lastSegment);
+        if (validBytes < activeSegment.size()) {
+            log.warn("Cutting off torn ledger outbox entry at {} of segment {}", validBytes, lastSegment);
+            activeSegment.truncate(validBytes);
+        }
+        activeSegment.position(validBytes);
+        writePosition = new Position(lastSegment, validBytes);
+        ackPosition = readCursor();
+        readPosition = ackPosition;
+        log.info("[INIT LOAD] LedgerOutbox initialized with {} pending bytes.", getPendingBytes());
+    }
+
+    public synchronized void append(ProducerRecord<String, byte[]> record)
+    {
+        byte[] body = serialize(record);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_BYTES + body.length);
+        entry.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+        try {
+            if (writePosition.offset > 0 && writePosition.offset + entry.remaining() > segmentBytes) {
+                roll();
+            }
+            while (entry.hasRemaining()) {
+                activeSegment.write(entry);
+            }
+            if (fsync) {
+                activeSegment.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to ledger outbox", e);
+        }
+        writePosition = new Position(writePosition.segment, writePosition.offset + ENTRY_HEADER_BYTES + body.length);
+        appended.increment();
+    }
+
+    /**
+     * @return whether all appended records were acknowledged
+     */
+    public boolean isEmpty()
+    {
+        return ackPosition.equals(writePosition);
+    }
+
+    /**
+     * Reads the next records after the ones returned before, the position of an entry is the one right behind it.
+     */
+    public List<Entry> read(int maxRecords)
+    {
+        Position end = writePosition;
+        List<Entry> entries = new ArrayList<>();
+        try {
+            while (entries.size() < maxRecords && !readPosition.equals(end)) {
+                if (readPosition.segment < end.segment && readPosition.offset >= segmentSize(readPosition.segment)) {
+                    synchronized (this) {
+                        readPosition = new Position(segments.higher(readPosition.segment), 0);
+                    }
+                    continue;
+                }
+                try (FileChannel segment = FileChannel.open(segmentFile(readPosition.segment), StandardOpenOption.READ)) {
+                    long limit = readPosition.segment == end.segment ? end.offset : segment.size();
+                    long offset = readPosition.offset;
+                    while (entries.size() < maxRecords && offset < limit) {
+                        byte[] body = readEntry(segment, offset);
+                        offset += ENTRY_HEADER_BYTES + body.length;
+                        entries.add(new Entry(deserialize(body), new Position(readPosition.segment, offset)));
+                    }
+                    readPosition = new Position(readPosition.segment, offset);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ledger outbox", e);
+        }
+        return entries;
+    }
+
+    /**
+     * Makes the next read start again behind the last acknowledged record.
+     */
+    public void rewind()
+    {
+        readPosition = ackPosition;
+    }
+
+    /**
+     * Marks all records up to the position as handed to Kafka and deletes the segments holding only such records.
+     */
+    public void acknowledge(Position position)
+    {
+        try {
+            Path cursor = directory.resolve(CURSOR_FILE);
+            Path newCursor = directory.resolve(CURSOR_FILE + ".tmp");
+            ByteBuffer bytes = ByteBuffer.allocate(CURSOR_BYTES).putLong(position.segment).putLong(position.offset);
+            bytes.flip();
+            try (FileChannel channel = FileChannel.open(newCursor, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+            }
+            Files.move(newCursor, cursor, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (fsync) {
+                // The segments may only go once the new cursor survives a crash
+                forceDirectory();
+            }
+            ackPosition = position;
+            synchronized (this) {
+                while (segments.first() < position.segment) {
+                    Files.deleteIfExists(segmentFile(segments.pollFirst()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not acknowledge ledger outbox records", e);
+        }
+    }
+
+    @ManagedAttribute
+    public synchronized long getPendingBytes()
+    {
+        Position acknowledged = ackPosition;
+        long pending = -acknowledged.offset;
+        for (long segment : segments.tailSet(acknowledged.segment, true)) {
+            pending += segment == writePosition.segment ? writePosition.offset : segmentSize(segment);
+        }
+        return pending;
+    }
+
+    @ManagedAttribute
+    public synchronized int getSegmentCount()
+    {
+        return segments.size();
+    }
+
+    @ManagedAttribute
+    public long getAppendedCount()
+    {
+        return appended.sum();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        activeSegment.close();
+    }
+
+    private void roll() throws IOException
+    {
+        activeSegment.force(true);
+        activeSegment.close();
+        long segment = writePosition.segment + 1;
+        activeSegment = FileChannel.open(segmentFile(segment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        if (fsync) {
+            forceDirectory();
+        }
+        segments.add(segment);
+        writePosition = new Position(segment, 0);
+    }
+
+    private void forceDirectory() throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private Position readCursor() throws IOException
+    {
+        Position first = new Position(segments.first(), 0);
+        Path cursor = directory.resolve(CURSOR_FILE);
+        if (!Files.exists(cursor)) {
+            return first;
+        }
+        byte[] bytes = Files.readAllBytes(cursor);
+        if (bytes.length != CURSOR_BYTES) {
+            log.warn("Ignoring torn ledger outbox cursor of {} bytes, replaying from segment {}", bytes.length,
+                    first.segment);
+            return first;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Position position = new Position(buffer.getLong(), buffer.getLong());
+        long segmentEnd = position.segment == writePosition.segment ? writePosition.offset
+                : segments.contains(position.segment) ? segmentSize(position.segment) : -1;
+        if (position.offset < 0 || position.offset > segmentEnd) {
+            log.warn("Ignoring ledger outbox cursor {} outside of the segments, replaying from segment {}", position,
+                    first.segment);
+            return first;
+        }
+        return position;
+    }
+
+    private long validBytes(long segment) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(segmentFile(segment), StandardOpenOption.READ)) {
+            long offset = 0;
+            while (offset < channel.size()) {
+                try {
+                    offset += ENTRY_HEADER_BYTES + readEntry(channel, offset).length;
+                } catch (IOException e) {
+                    break;
+                }
+            }
+            return offset;
+        }
+    }
+
+    private long segmentSize(long segment)
+    {
+        try {
+            return Files.size(segmentFile(segment));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentFile(long segment)
+    {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private static byte[] readEntry(FileChannel channel, long offset) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(ENTRY_HEADER_BYTES);
+        readFully(channel, header, offset);
+        int length = header.getInt(0);
+        if (length < 0 || offset + ENTRY_HEADER_BYTES + length > channel.size()) {
+            throw new IOException("Torn ledger outbox entry at " + offset);
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(channel, body, offset + ENTRY_HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        if ((int) crc.getValue() != header.getInt(4)) {
+            throw new IOException("Corrupt ledger outbox entry at " + offset);
+        }
+        return body.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Torn ledger outbox entry at " + offset);
+            }
+        }
+    }
+
+    private static byte[] serialize(ProducerRecord<String, byte[]> record)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(record.value().length + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeBytes(out, record.topic().getBytes(StandardCharsets.UTF_8));
+            writeBytes(out, record.key() == null ? null : record.key().getBytes(StandardCharsets.UTF_8));
+            Header[] headers = record.headers().toArray();
+            out.writeInt(headers.length);
+            for (Header header : headers) {
+                writeBytes(out, header.key().getBytes(StandardCharsets.UTF_8));
+                writeBytes(out, header.value());
+            }
+            writeBytes(out, record.value());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ProducerRecord<String, byte[]> deserialize(byte[] body)
+    {
+        ByteBuffer in = ByteBuffer.wrap(body);
+        String topic = readString(in);
+        String key = readString(in);
+        int headerCount = in.getInt();
+        String[] headerKeys = new String[headerCount];
+        byte[][] headerValues = new byte[headerCount][];
+        for (int i = 0; i < headerCount; i++) {
+            headerKeys[i] = readString(in);
+            headerValues[i] = readBytes(in);
+        }
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, readBytes(in));
+        for (int i = 0; i < headerCount; i++) {
+            record.headers().add(headerKeys[i], headerValues[i]);
+        }
+        return record;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException
+    {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer in)
+    {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer in)
+    {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Value
+    public static class Entry
+    {
+        ProducerRecord<String, byte[]> record;
+        Position position;
+    }
+
+    @Value
+    public static class Position
+    {
+        long segment;
+        long offset;
+    }
+}
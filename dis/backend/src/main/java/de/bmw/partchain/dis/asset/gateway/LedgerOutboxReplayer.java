@@ -0,0 +1,199 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the ledger outbox in order, the records of a batch are acknowledged up to the first one which failed with a
+ * retriable error. From that record on the batch is sent again after an exponentially growing delay, so records may
+ * reach the ledger more than once. A record Kafka rejected for good, e.g. as too large or not authorized, is logged
+ * and skipped, so that it does not hold back the records behind it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ledger.outbox.enabled", havingValue = "true")
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=Ledger,name=OutboxReplayer")
+public class LedgerOutboxReplayer
+{
+    private final LedgerOutbox outbox;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dis-ledger-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value(value = "${ledger.outbox.replay.poll-millis:1000}")
+    private long pollMillis;
+
+    @Value(value = "${ledger.outbox.replay.initial-backoff-millis:1000}")
+    private long initialBackoffMillis;
+
+    @Value(value = "${ledger.outbox.replay.max-backoff-millis:60000}")
+    private long maxBackoffMillis;
+
+    private final int batchSize;
+    private final long ackTimeoutMillis;
+    private final LongAdder skipped = new LongAdder();
+    private int failedAttempts;
+
+    public LedgerOutboxReplayer(LedgerOutbox outbox, KafkaTemplate<String, byte[]> kafkaTemplate,
+                                @Value(value = "${ledger.outbox.replay.batch-size:500}") int batchSize,
+                                @Value(value = "${ledger.outbox.replay.ack-timeout-millis:30000}") long ackTimeoutMillis)
+    {
+        this.outbox = outbox;
+        this.kafkaTemplate = kafkaTemplate;
+        this.batchSize = batchSize;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        log.info("[INIT LOAD] LedgerOutboxReplayer initialized.");
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        scheduler.execute(this::replay);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return number of records Kafka rejected for good, which were skipped
+     */
+    @ManagedAttribute
+    public long getSkippedCount()
+    {
+        return skipped.sum();
+    }
+
+    private void replay()
+    {
+        long delayMillis = pollMillis;
+        try {
+            if (replayBatch() > 0) {
+                failedAttempts = 0;
+                delayMillis = 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            outbox.rewind();
+            failedAttempts++;
+            delayMillis = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(failedAttempts - 1, 20));
+            log.warn("Replaying the ledger outbox failed {} times, retrying in {} ms", failedAttempts, delayMillis);
+            log.debug(e.getMessage());
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::replay, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the next batch and acknowledges its records up to the first failure which is not a rejection by Kafka,
+     * that failure is rethrown.
+     *
+     * @return number of records read from the outbox
+     */
+    int replayBatch() throws InterruptedException, ExecutionException, TimeoutException
+    {
+        List<LedgerOutbox.Entry> entries = outbox.read(batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<?>> sends = new ArrayList<>(entries.size());
+        entries.forEach(entry -> sends.add(send(entry.getRecord())));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMillis);
+        LedgerOutbox.Position delivered = null;
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                try {
+                    sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    if (!isRejected(e)) {
+                        throw e;
+                    }
+                    skipped.increment();
+                    log.error(String.format("Skipping ledger record of topic %s in the outbox, Kafka rejected it",
+                            entries.get(i).getRecord().topic()), e.getCause());
+                }
+                delivered = entries.get(i).getPosition();
+            }
+        } finally {
+            if (delivered != null) {
+                outbox.acknowledge(delivered);
+            }
+        }
+        log.debug("Replayed {} ledger records from the outbox.", entries.size());
+        return entries.size();
+    }
+
+    private CompletableFuture<?> send(ProducerRecord<String, byte[]> record)
+    {
+        try {
+            return kafkaTemplate.send(record).completable();
+        } catch (RuntimeException e) {
+            // Failures detected before the record reaches the producer buffer, e.g. by the serializer
+            CompletableFuture<?> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * @return whether Kafka failed the record with an error which sending it again will not resolve, other failures
+     * like a closed producer are retried
+     */
+    private static boolean isRejected(Throwable exception)
+    {
+        boolean rejected = false;
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return false;
+            }
+            rejected |= cause instanceof KafkaException;
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects the ledger records of one ingest request, which are then published all or nothing. Assets may be added
+ * from any thread, {@link #commit} is called once by the thread owning the request.
+ */
+public interface LedgerTransaction extends AssetGateway
+{
+    /**
+     * Only buffers the asset, it is published by {@link #commit}.
+     *
+     * @return completes once the asset is buffered
+     */
+    @Override
+    CompletableFuture<Void> sendToLedger(Asset asset);
+
+    /**
+     * Publishes the buffered assets together with everything the given action publishes through the gateways on
+     * the calling thread, either all of it or nothing.
+     *
+     * @throws RuntimeException if the transaction was aborted
+     */
+    void commit(Runnable inTransaction);
+
+    /**
+     * Defers an action publishing data derived from the buffered assets, like their enrichment, until the
+     * transaction committed. The action is dropped if the transaction is aborted.
+     */
+    void afterCommit(Runnable action);
+}
@@ -4,15 +4,28 @@ package de.bmw.partchain.dis.asset.model.dao;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.redis.core.RedisHash;
+import org.springframework.data.redis.core.TimeToLive;
 
 
 @Data
 @Builder
-@RedisHash(value = "BusinessPartner", timeToLive = 7200)
+@RedisHash(value = BpnDao.KEY_SPACE, timeToLive = BpnDao.TIME_TO_LIVE)
 public class BpnDao {
 
+  public static final String KEY_SPACE = "BusinessPartner";
+  public static final long TIME_TO_LIVE = 7200;
+
   private String id;
   private String name;
+  /**
+   * Marks a negative entry for a OneID the BPN API has no business partner for.
+   */
+  private boolean unresolvable;
+  /**
+   * Overrides the default time to live in seconds, used for the shorter lived negative entries.
+   */
+  @TimeToLive
+  private Long timeToLive;
 
 
 }
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The failed assets of one ingest request, or of one chunk of them, in a single record. Fail reasons and warnings
+ * are listed once and referenced by their position, failed assets with the same outcome are grouped into ranges of
+ * indices.
+ */
+@Data
+public class AggregatedAssetIngestReport
+{
+    @JsonProperty
+    private String requestProcessId;
+    @JsonProperty
+    private Date requestDate;
+    @JsonProperty
+    private String mspId;
+    @JsonProperty
+    private String sourceService;
+    @JsonProperty
+    private int chunkIndex;
+    @JsonProperty
+    private int chunkCount;
+    @JsonProperty
+    private int failedAssetCount;
+    @JsonProperty
+    private List<String> failReasons;
+    @JsonProperty
+    private List<String> warnings;
+    @JsonProperty
+    private List<AssetIngestFailureGroup> failures;
+
+    @Override
+    public String toString()
+    {
+        return GatewayPayloadCodec.toJson(this);
+    }
+}
@@ -18,10 +18,8 @@
 package de.bmw.partchain.dis.asset.model.gateway;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import de.bmw.partchain.dis.asset.model.request.SerialNumberType;
 import lombok.Data;
-import lombok.SneakyThrows;
 
 import java.util.Date;
 import java.util.Map;
@@ -69,10 +67,9 @@ public class Asset
     @JsonProperty
     private Map<String, String> qualityDocuments;
 
-    @SneakyThrows
     @Override
     public String toString()
     {
-        return new ObjectMapper().writeValueAsString(this);
+        return GatewayPayloadCodec.toJson(this);
     }
 }
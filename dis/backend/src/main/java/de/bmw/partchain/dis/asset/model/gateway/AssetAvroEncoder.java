@@ -0,0 +1,238 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes an {@link Asset} in the Avro binary encoding of the schema {@code avro/Asset.avsc}, framed with the Avro
+ * single object encoding (marker, 64-bit schema fingerprint, payload) so consumers can select the schema without a
+ * registry. The fields are written in the order of the schema, which has to be kept in sync with this class. The
+ * schema is stored in parsing canonical form, so its fingerprint is the CRC-64-AVRO of the file content.
+ */
+final class AssetAvroEncoder
+{
+    static final String SCHEMA_RESOURCE = "/avro/Asset.avsc";
+
+    private static final byte[] MARKER = {(byte) 0xC3, (byte) 0x01};
+    private static final long CRC_64_AVRO_EMPTY = 0xc15d213aa4d7a795L;
+    private static final long[] CRC_64_AVRO_TABLE = new long[256];
+    private static final int NULL_BRANCH = 0;
+    private static final int VALUE_BRANCH = 1;
+
+    static
+    {
+        for (int i = 0; i < CRC_64_AVRO_TABLE.length; i++) {
+            long fingerprint = i;
+            for (int j = 0; j < 8; j++) {
+                fingerprint = (fingerprint >>> 1) ^ (CRC_64_AVRO_EMPTY & -(fingerprint & 1L));
+            }
+            CRC_64_AVRO_TABLE[i] = fingerprint;
+        }
+    }
+
+    private final long schemaFingerprint;
+
+    AssetAvroEncoder()
+    {
+        this.schemaFingerprint = fingerprint(readSchema());
+    }
+
+    long getSchemaFingerprint()
+    {
+        return schemaFingerprint;
+    }
+
+    byte[] encode(Asset asset)
+    {
+        Buffer buffer = new Buffer();
+        buffer.write(MARKER);
+        buffer.writeFixedLong(schemaFingerprint);
+
+        buffer.writeNullableString(asset.getRequestProcessId());
+        if (asset.getRequestDate() == null) {
+            buffer.writeLong(NULL_BRANCH);
+        } else {
+            buffer.writeLong(VALUE_BRANCH);
+            buffer.writeLong(asset.getRequestDate().getTime());
+        }
+        buffer.writeNullableString(asset.getManufacturer());
+        buffer.writeNullableString(asset.getProductionCountryCodeManufacturer());
+        buffer.writeNullableString(asset.getPartNameManufacturer());
+        buffer.writeNullableString(asset.getPartNumberManufacturer());
+        buffer.writeNullableString(asset.getPartNumberCustomer());
+        buffer.writeNullableString(asset.getSerialNumberManufacturer());
+        buffer.writeNullableString(asset.getSerialNumberCustomer());
+        buffer.writeNullableEnum(asset.getQualityStatus());
+        buffer.writeNullableArray(asset.getComponentsSerialNumbers());
+        buffer.writeNullableString(asset.getStatus());
+        buffer.writeNullableString(asset.getProductionDateGmt());
+        buffer.writeNullableString(asset.getMspId());
+        buffer.writeNullableEnum(asset.getSerialNumberType());
+        buffer.writeNullableString(asset.getManufacturerPlant());
+        buffer.writeNullableString(asset.getManufacturerLine());
+        buffer.writeNullableMap(asset.getCustomFields());
+        buffer.writeNullableMap(asset.getQualityDocuments());
+        return buffer.toByteArray();
+    }
+
+    private static byte[] readSchema()
+    {
+        try (InputStream schema = AssetAvroEncoder.class.getResourceAsStream(SCHEMA_RESOURCE)) {
+            if (schema == null) {
+                throw new IllegalStateException("Missing Avro schema " + SCHEMA_RESOURCE);
+            }
+            Buffer buffer = new Buffer();
+            byte[] chunk = new byte[4096];
+            for (int read = schema.read(chunk); read >= 0; read = schema.read(chunk)) {
+                buffer.write(chunk, read);
+            }
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long fingerprint(byte[] data)
+    {
+        long fingerprint = CRC_64_AVRO_EMPTY;
+        for (byte b : data) {
+            fingerprint = (fingerprint >>> 8) ^ CRC_64_AVRO_TABLE[(int) (fingerprint ^ b) & 0xff];
+        }
+        return fingerprint;
+    }
+
+    private static final class Buffer
+    {
+        private byte[] bytes = new byte[512];
+        private int size;
+
+        void write(byte[] data)
+        {
+            write(data, data.length);
+        }
+
+        void write(byte[] data, int length)
+        {
+            ensureCapacity(length);
+            System.arraycopy(data, 0, bytes, size, length);
+            size += length;
+        }
+
+        /**
+         * Zig-zag encoded variable length long, as used for all Avro ints and longs.
+         */
+        void writeLong(long value)
+        {
+            ensureCapacity(10);
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
+            }
+            bytes[size++] = (byte) zigZag;
+        }
+
+        /**
+         * Little endian long, as used for the fingerprint of the single object encoding.
+         */
+        void writeFixedLong(long value)
+        {
+            ensureCapacity(8);
+            for (int i = 0; i < 8; i++) {
+                bytes[size++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void writeString(String value)
+        {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeLong(utf8.length);
+            write(utf8);
+        }
+
+        void writeNullableString(String value)
+        {
+            if (value == null) {
+                writeLong(NULL_BRANCH);
+            } else {
+                writeLong(VALUE_BRANCH);
+                writeString(value);
+            }
+        }
+
+        void writeNullableEnum(Enum<?> value)
+        {
+            if (value == null) {
+                writeLong(NULL_BRANCH);
+            } else {
+                writeLong(VALUE_BRANCH);
+                writeLong(value.ordinal());
+            }
+        }
+
+        void writeNullableArray(Collection<String> values)
+        {
+            if (values == null) {
+                writeLong(NULL_BRANCH);
+                return;
+            }
+            writeLong(VALUE_BRANCH);
+            if (!values.isEmpty()) {
+                writeLong(values.size());
+                values.forEach(this::writeNullableString);
+            }
+            writeLong(0);
+        }
+
+        void writeNullableMap(Map<String, String> values)
+        {
+            if (values == null) {
+                writeLong(NULL_BRANCH);
+                return;
+            }
+            writeLong(VALUE_BRANCH);
+            if (!values.isEmpty()) {
+                writeLong(values.size());
+                values.forEach((key, value) -> {
+                    writeString(key);
+                    writeNullableString(value);
+                });
+            }
+            writeLong(0);
+        }
+
+        byte[] toByteArray()
+        {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int additional)
+        {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+}
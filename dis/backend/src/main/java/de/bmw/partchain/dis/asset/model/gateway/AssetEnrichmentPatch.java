@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Custom fields resolved after the asset was already sent to the ledger, to be merged into the asset with the same
+ * manufacturer serial number.
+ */
+@Data
+public class AssetEnrichmentPatch
+{
+    @JsonProperty
+    private String requestProcessId;
+    @JsonProperty
+    private String mspId;
+    @JsonProperty
+    private String serialNumberManufacturer;
+    @JsonProperty
+    private Map<String, String> customFields;
+
+    @Override
+    public String toString()
+    {
+        return GatewayPayloadCodec.toJson(this);
+    }
+}
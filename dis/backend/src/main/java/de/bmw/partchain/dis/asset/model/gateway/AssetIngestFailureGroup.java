@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.bmw.partchain.dis.asset.model.response.AssetFailType;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Failed assets sharing the same fail type, fail reasons and warnings.
+ */
+@Data
+public class AssetIngestFailureGroup
+{
+    @JsonProperty
+    private AssetFailType failType;
+    /**
+     * Positions in {@link AggregatedAssetIngestReport#getFailReasons()}.
+     */
+    @JsonProperty
+    private List<Integer> failReasons;
+    /**
+     * Positions in {@link AggregatedAssetIngestReport#getWarnings()}.
+     */
+    @JsonProperty
+    private List<Integer> warnings;
+    /**
+     * Inclusive [first, last] ranges of the request indices of the failed assets.
+     */
+    @JsonProperty
+    private List<int[]> indexRanges;
+}
@@ -18,9 +18,7 @@
 package de.bmw.partchain.dis.asset.model.gateway;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
-import lombok.SneakyThrows;
 
 import java.util.Date;
 import java.util.List;
@@ -43,10 +41,9 @@ public class AssetIngestReport
     @JsonProperty
     private String sourceService;
 
-    @SneakyThrows
     @Override
     public String toString()
     {
-        return new ObjectMapper().writeValueAsString(this);
+        return GatewayPayloadCodec.toJson(this);
     }
 }
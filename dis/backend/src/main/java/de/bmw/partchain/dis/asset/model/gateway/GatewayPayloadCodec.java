@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes the gateway payloads with writers that are built once and shared, straight to the bytes sent to Kafka.
+ * It deliberately uses a plain {@link ObjectMapper} instead of the one configured for the REST API, so that the
+ * payloads keep their format (e.g. dates as epoch millis).
+ */
+@Slf4j
+@Component
+public class GatewayPayloadCodec
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectWriter ASSET_WRITER = OBJECT_MAPPER.writerFor(Asset.class);
+    private static final ObjectWriter ASSET_INGEST_REPORT_WRITER = OBJECT_MAPPER.writerFor(AssetIngestReport.class);
+    private static final ObjectWriter ASSET_ENRICHMENT_PATCH_WRITER = OBJECT_MAPPER.writerFor(AssetEnrichmentPatch.class);
+    private static final ObjectWriter AGGREGATED_ASSET_INGEST_REPORT_WRITER =
+            OBJECT_MAPPER.writerFor(AggregatedAssetIngestReport.class);
+
+    private final AssetAvroEncoder assetAvroEncoder = new AssetAvroEncoder();
+
+    public GatewayPayloadCodec()
+    {
+        log.info("[INIT LOAD] GatewayPayloadCodec initialized with Avro asset schema fingerprint {}.",
+                Long.toHexString(assetAvroEncoder.getSchemaFingerprint()));
+    }
+
+    @SneakyThrows
+    public byte[] encode(Asset asset)
+    {
+        return ASSET_WRITER.writeValueAsBytes(asset);
+    }
+
+    public byte[] encode(Asset asset, WireFormat wireFormat)
+    {
+        return wireFormat == WireFormat.AVRO ? assetAvroEncoder.encode(asset) : encode(asset);
+    }
+
+    @SneakyThrows
+    public byte[] encode(AssetIngestReport assetIngestReport)
+    {
+        return ASSET_INGEST_REPORT_WRITER.writeValueAsBytes(assetIngestReport);
+    }
+
+    @SneakyThrows
+    public byte[] encode(AggregatedAssetIngestReport aggregatedAssetIngestReport)
+    {
+        return AGGREGATED_ASSET_INGEST_REPORT_WRITER.writeValueAsBytes(aggregatedAssetIngestReport);
+    }
+
+    @SneakyThrows
+    public byte[] encode(AssetEnrichmentPatch patch)
+    {
+        return ASSET_ENRICHMENT_PATCH_WRITER.writeValueAsBytes(patch);
+    }
+
+    /**
+     * JSON representation of a payload as used by {@code toString()}.
+     */
+    @SneakyThrows
+    static String toJson(Object payload)
+    {
+        return OBJECT_MAPPER.writeValueAsString(payload);
+    }
+}
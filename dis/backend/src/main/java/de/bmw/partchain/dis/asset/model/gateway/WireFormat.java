@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Encoding of the ledger messages, sent along in the {@link #HEADER} record header.
+ */
+public enum WireFormat
+{
+    /**
+     * The JSON representation of the asset.
+     */
+    JSON,
+    /**
+     * Avro binary encoding of the asset with the schema in {@code avro/Asset.avsc}, framed with the Avro single object
+     * encoding which starts with the fingerprint of the schema.
+     */
+    AVRO;
+
+    public static final String HEADER = "wireFormat";
+
+    private final byte[] headerValue = name().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+
+    public byte[] getHeaderValue()
+    {
+        return headerValue.clone();
+    }
+
+    public static WireFormat of(String value)
+    {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -20,5 +20,13 @@ package de.bmw.partchain.dis.asset.model.response;
 public enum AssetFailType
 {
     VALIDATION,
+    /**
+     * The request holds the manufacturer serial number of the asset several times with differing content.
+     */
+    CONFLICT,
+    /**
+     * The part tree of the request has a cycle through or below the asset, or, if rejected, children not in the request.
+     */
+    PART_TREE,
     OTHER
 }
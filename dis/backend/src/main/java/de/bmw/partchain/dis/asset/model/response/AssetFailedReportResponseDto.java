@@ -19,6 +19,7 @@ package de.bmw.partchain.dis.asset.model.response;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -35,10 +36,15 @@ public class AssetFailedReportResponseDto
     private AssetFailType failType;
     private List<String> failReasons;
     private List<String> warnings;
+    /**
+     * Indices of all assets of the request clashing with this one, for failures of type {@link AssetFailType#CONFLICT}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Integer> conflictingAssets;
 
     public AssetFailedReportResponseDto(int index, AssetFailType failType, List<String> failReasons)
     {
-        this(index,failType,failReasons,new ArrayList<>());
+        this(index,failType,failReasons,new ArrayList<>(),null);
     }
 }
 
@@ -33,6 +33,10 @@ public class SentToLedgerResponseDto
     private String mspId;
     private List<Integer> processedAssets;
     private List<AssetFailedReportResponseDto> failedAssets;
+    /**
+     * Assets which were published unchanged before and therefore not again.
+     */
+    private List<Integer> skippedAssets = new ArrayList<>();
 
     public SentToLedgerResponseDto()
     {
@@ -59,4 +63,9 @@ public class SentToLedgerResponseDto
     {
         processedAssets.add(index);
     }
+
+    public final void addSkippedAssetIndex(int index)
+    {
+        skippedAssets.add(index);
+    }
 }
@@ -0,0 +1,33 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.repository;
+
+import de.bmw.partchain.dis.asset.model.response.AssetIngestJobResponseDto;
+
+import java.util.Optional;
+
+/**
+ * Keeps the state of asynchronous bulk ingest jobs. Jobs are scoped by the mspid of the tenant that submitted
+ * them, so a tenant can only poll its own jobs.
+ */
+public interface AssetIngestJobStore
+{
+    void save(String mspId, AssetIngestJobResponseDto job);
+
+    Optional<AssetIngestJobResponseDto> findById(String mspId, String requestProcessId);
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.repository;
+
+import de.bmw.partchain.dis.asset.model.response.AssetIngestJobResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "bulk.job.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryAssetIngestJobStore implements AssetIngestJobStore
+{
+    private final Map<String, AssetIngestJobResponseDto> jobs = new ConcurrentHashMap<>();
+
+    @Value(value = "${bulk.job.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    public InMemoryAssetIngestJobStore()
+    {
+        log.info("[INIT] InMemoryAssetIngestJobStore initialized");
+    }
+
+    @Override
+    public void save(String mspId, AssetIngestJobResponseDto job)
+    {
+        evictExpiredJobs();
+        jobs.put(key(mspId, job.getRequestProcessId()), job);
+    }
+
+    @Override
+    public Optional<AssetIngestJobResponseDto> findById(String mspId, String requestProcessId)
+    {
+        return Optional.ofNullable(jobs.get(key(mspId, requestProcessId)));
+    }
+
+    private void evictExpiredJobs()
+    {
+        long expiredBefore = System.currentTimeMillis() - ttlSeconds * 1000;
+        jobs.values().removeIf(job -> job.getUpdatedDate().getTime() < expiredBefore);
+    }
+
+    private static String key(String mspId, String requestProcessId)
+    {
+        return mspId + ":" + requestProcessId;
+    }
+}
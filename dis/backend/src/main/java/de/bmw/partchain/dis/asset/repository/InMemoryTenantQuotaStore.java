@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.repository;
+
+import de.bmw.partchain.dis.resilience.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Quotas of a single instance, with several replicas each of them admits the configured budget.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "admission.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTenantQuotaStore implements TenantQuotaStore
+{
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    public InMemoryTenantQuotaStore()
+    {
+        log.info("[INIT LOAD] InMemoryTenantQuotaStore initialized.");
+    }
+
+    @Override
+    public long tryAcquireAssets(String mspId, long assets, double assetsPerSecond, long burstAssets)
+    {
+        return buckets.computeIfAbsent(mspId,
+                key -> new TokenBucket(assetsPerSecond, burstAssets, System::currentTimeMillis))
+                .tryAcquire(assets);
+    }
+
+    @Override
+    public boolean tryAcquireRequest(String mspId, int maxConcurrentRequests)
+    {
+        AtomicInteger count = requests.computeIfAbsent(mspId, key -> new AtomicInteger());
+        if (count.incrementAndGet() > maxConcurrentRequests) {
+            count.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void releaseRequest(String mspId)
+    {
+        requests.get(mspId).decrementAndGet();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bmw.partchain.dis.asset.model.response.AssetIngestJobResponseDto;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "bulk.job.store", havingValue = "redis")
+public class RedisAssetIngestJobStore implements AssetIngestJobStore
+{
+    private static final String KEY_PREFIX = "AssetIngestJob:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value(value = "${bulk.job.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    public RedisAssetIngestJobStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper)
+    {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        log.info("[INIT LOAD] RedisAssetIngestJobStore initialized.");
+    }
+
+    @Override
+    @SneakyThrows
+    public void save(String mspId, AssetIngestJobResponseDto job)
+    {
+        redisTemplate.opsForValue().set(key(mspId, job.getRequestProcessId()),
+                objectMapper.writeValueAsString(job), ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    @SneakyThrows
+    public Optional<AssetIngestJobResponseDto> findById(String mspId, String requestProcessId)
+    {
+        String job = redisTemplate.opsForValue().get(key(mspId, requestProcessId));
+        return job == null ? Optional.empty() : Optional.of(objectMapper.readValue(job, AssetIngestJobResponseDto.class));
+    }
+
+    private static String key(String mspId, String requestProcessId)
+    {
+        return KEY_PREFIX + mspId + ":" + requestProcessId;
+    }
+}
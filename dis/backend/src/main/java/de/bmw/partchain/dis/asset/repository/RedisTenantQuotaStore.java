@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+
+/**
+ * Quotas shared by all replicas. The token buckets and request counts are updated by Lua scripts, so each update is
+ * atomic, and the buckets are refilled by the clock of the Redis server. The request counts expire, so the requests
+ * of a replica that died while they were in progress do not block the tenant for longer than the expiry. If Redis
+ * fails, the work is admitted.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "admission.store", havingValue = "redis")
+public class RedisTenantQuotaStore implements TenantQuotaStore
+{
+    private static final String BUCKET_KEY_PREFIX = "AdmissionBucket:";
+    private static final String REQUESTS_KEY_PREFIX = "AdmissionRequests:";
+
+    private static final RedisScript<Long> ACQUIRE_ASSETS = new DefaultRedisScript<>(
+            "redis.replicate_commands()\n" +
+            "local rate = tonumber(ARGV[1])\n" +
+            "local burst = tonumber(ARGV[2])\n" +
+            "local time = redis.call('TIME')\n" +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+            "local state = redis.call('HMGET', KEYS[1], 'tokens', 'updated')\n" +
+            "local tokens = tonumber(state[1]) or burst\n" +
+            "local updated = tonumber(state[2]) or now\n" +
+            "tokens = math.min(burst, tokens + math.max(0, now - updated) * rate / 1000)\n" +
+            "local wait = 0\n" +
+            "if tokens > 0 then\n" +
+            "  tokens = tokens - tonumber(ARGV[3])\n" +
+            "else\n" +
+            "  wait = math.max(1, math.ceil(-tokens * 1000 / rate))\n" +
+            "end\n" +
+            "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'updated', now)\n" +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil((burst - tokens) * 1000 / rate) + 1000)\n" +
+            "return wait", Long.class);
+
+    private static final RedisScript<Long> ACQUIRE_REQUEST = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1])\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "if count > tonumber(ARGV[1]) then\n" +
+            "  redis.call('DECR', KEYS[1])\n" +
+            "  return 0\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    private static final RedisScript<Long> RELEASE_REQUEST = new DefaultRedisScript<>(
+            "local count = redis.call('DECR', KEYS[1])\n" +
+            "if count <= 0 then\n" +
+            "  redis.call('DEL', KEYS[1])\n" +
+            "end\n" +
+            "return count", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value(value = "${admission.redis.request-ttl-seconds:600}")
+    private long requestTtlSeconds;
+
+    public RedisTenantQuotaStore(StringRedisTemplate redisTemplate)
+    {
+        this.redisTemplate = redisTemplate;
+        log.info("[INIT LOAD] RedisTenantQuotaStore initialized.");
+    }
+
+    @Override
+    public long tryAcquireAssets(String mspId, long assets, double assetsPerSecond, long burstAssets)
+    {
+        try {
+            Long wait = redisTemplate.execute(ACQUIRE_ASSETS, Collections.singletonList(BUCKET_KEY_PREFIX + mspId),
+                    Double.toString(assetsPerSecond), Long.toString(burstAssets), Long.toString(assets));
+            return wait == null ? 0 : wait;
+        } catch (RuntimeException exception) {
+            log.warn("Asset quota of {} could not be checked, admitting the assets", mspId);
+            log.debug(exception.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean tryAcquireRequest(String mspId, int maxConcurrentRequests)
+    {
+        try {
+            Long acquired = redisTemplate.execute(ACQUIRE_REQUEST,
+                    Collections.singletonList(REQUESTS_KEY_PREFIX + mspId),
+                    Integer.toString(maxConcurrentRequests), Long.toString(requestTtlSeconds));
+            return acquired == null || acquired == 1;
+        } catch (RuntimeException exception) {
+            log.warn("Request quota of {} could not be checked, admitting the request", mspId);
+            log.debug(exception.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void releaseRequest(String mspId)
+    {
+        try {
+            redisTemplate.execute(RELEASE_REQUEST, Collections.singletonList(REQUESTS_KEY_PREFIX + mspId));
+        } catch (RuntimeException exception) {
+            log.warn("Request quota of {} could not be released", mspId);
+            log.debug(exception.getMessage());
+        }
+    }
+}
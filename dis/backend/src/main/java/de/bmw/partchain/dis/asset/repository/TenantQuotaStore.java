@@ -0,0 +1,33 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.repository;
+
+/**
+ * Keeps the asset token buckets and the counts of concurrent bulk requests of the tenants.
+ */
+public interface TenantQuotaStore
+{
+    /**
+     * @return zero if the assets are admitted, otherwise the milliseconds until the tenant has budget again
+     */
+    long tryAcquireAssets(String mspId, long assets, double assetsPerSecond, long burstAssets);
+
+    boolean tryAcquireRequest(String mspId, int maxConcurrentRequests);
+
+    void releaseRequest(String mspId);
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import de.bmw.partchain.dis.config.BulkProcessingConfig;
+import de.bmw.partchain.dis.resilience.TenantFairExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executor;
+
+@Service
+public class AssetBulkService
+{
+    private final AssetIngestService assetIngestService;
+    private final AssetService assetService;
+    private final AssetDeduplicationService deduplicationService;
+    private final Executor executor;
+    private final TenantFairExecutor backgroundExecutor;
+
+    @Value(value = "${bulk.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value(value = "${bulk.bpn-batch-size:500}")
+    private int bpnBatchSize;
+
+    @Value(value = "${bulk.part-tree.reject-dangling-children:false}")
+    private boolean rejectDanglingChildren;
+
+    @Value(value = "${ledger.transactional:false}")
+    private boolean transactional;
+
+    public AssetBulkService(AssetIngestService assetIngestService, AssetService assetService,
+                            AssetDeduplicationService deduplicationService,
+                            @Qualifier(BulkProcessingConfig.BULK_ASSET_EXECUTOR) Executor executor,
+                            @Qualifier(BulkProcessingConfig.BACKGROUND_INGEST_EXECUTOR) TenantFairExecutor backgroundExecutor)
+    {
+        this.assetIngestService = assetIngestService;
+        this.assetService = assetService;
+        this.deduplicationService = deduplicationService;
+        this.executor = executor;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    public AssetIngestPipeline open(SentToLedgerResponseDto responseDto)
+    {
+        return open(responseDto, executor);
+    }
+
+    /**
+     * Opens a pipeline whose assets are ingested on the background executor, interleaved with the background work
+     * of the other tenants.
+     */
+    public AssetIngestPipeline openInBackground(SentToLedgerResponseDto responseDto)
+    {
+        return open(responseDto,
+                new DelegatingSecurityContextExecutor(backgroundExecutor.forTenant(responseDto.getMspId())));
+    }
+
+    private AssetIngestPipeline open(SentToLedgerResponseDto responseDto, Executor executor)
+    {
+        return new AssetIngestPipeline(assetIngestService, executor, responseDto,
+                assetService.newBusinessPartnerNames(), transactional ? assetService.beginTransaction() : null,
+                deduplicationService.isEnabled() ? deduplicationService : null, rejectDanglingChildren, maxInFlight, bpnBatchSize);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Recognizes assets which a tenant submits again without changes. An asset is identified by its manufacturer serial
+ * and part number, its content by a SHA-256 hash over the identity and the whole asset. The hashes of published
+ * assets are kept per identity in Redis for the window, where all replicas find them. With the local filter enabled
+ * they are also kept in a time window bloom filter of this replica, and only assets the filter might contain are
+ * looked up in Redis. This saves the lookups of new assets, but only recognizes re-submissions this replica
+ * published since its start. Redis confirms every match, so filter false positives never drop an asset.
+ */
+@Slf4j
+@Service
+public class AssetDeduplicationService
+{
+    private static final String KEY_PREFIX = "AssetDigest:";
+    private static final ObjectWriter CONTENT_WRITER = new ObjectMapper()
+            .writer(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final long windowSeconds;
+    private final TimeWindowBloomFilter filter;
+
+    /**
+     * @param localFilter whether only assets in the bloom filter of this replica are looked up in Redis
+     * @param filterBits size of one filter generation, about 10 bits per asset of a window keep false positives at 1%
+     */
+    public AssetDeduplicationService(StringRedisTemplate redisTemplate,
+                                     @Value(value = "${ledger.dedup.enabled:false}") boolean enabled,
+                                     @Value(value = "${ledger.dedup.window-seconds:86400}") long windowSeconds,
+                                     @Value(value = "${ledger.dedup.local-filter:false}") boolean localFilter,
+                                     @Value(value = "${ledger.dedup.filter-bits:16777216}") int filterBits,
+                                     @Value(value = "${ledger.dedup.filter-hashes:7}") int filterHashes)
+    {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.windowSeconds = windowSeconds;
+        this.filter = enabled && localFilter
+                ? new TimeWindowBloomFilter(filterBits, filterHashes, windowSeconds * 1000, System::currentTimeMillis)
+                : null;
+        log.info("[INIT LOAD] AssetDeduplicationService initialized.");
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return per asset whether it was published unchanged within the window
+     */
+    public boolean[] findUnchanged(String mspId, List<CatenaXAssetRequestDto> assets)
+    {
+        boolean[] unchanged = new boolean[assets.size()];
+        List<Integer> candidates = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<String> digests = new ArrayList<>();
+        for (int i = 0; i < assets.size(); i++) {
+            String key = key(mspId, assets.get(i));
+            if (key == null) {
+                continue;
+            }
+            byte[] digest = digest(key, assets.get(i));
+            ByteBuffer hashes = ByteBuffer.wrap(digest);
+            if (filter == null || filter.mightContain(hashes.getLong(), hashes.getLong())) {
+                candidates.add(i);
+                keys.add(key);
+                digests.add(Base64.getEncoder().encodeToString(digest));
+            }
+        }
+        if (keys.isEmpty()) {
+            return unchanged;
+        }
+        try {
+            List<String> storedDigests = redisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; i < candidates.size(); i++) {
+                unchanged[candidates.get(i)] = storedDigests != null && digests.get(i).equals(storedDigests.get(i));
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Duplicate check of {} assets failed, publishing them", keys.size());
+            log.debug(exception.getMessage());
+        }
+        return unchanged;
+    }
+
+    /**
+     * Remembers the content of published assets, so that unchanged re-submissions are recognized.
+     */
+    public void remember(String mspId, List<CatenaXAssetRequestDto> assets)
+    {
+        List<String> keys = new ArrayList<>();
+        List<String> digests = new ArrayList<>();
+        for (CatenaXAssetRequestDto asset : assets) {
+            String key = key(mspId, asset);
+            if (key == null) {
+                continue;
+            }
+            byte[] digest = digest(key, asset);
+            if (filter != null) {
+                ByteBuffer hashes = ByteBuffer.wrap(digest);
+                filter.add(hashes.getLong(), hashes.getLong());
+            }
+            keys.add(key);
+            digests.add(Base64.getEncoder().encodeToString(digest));
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (int i = 0; i < keys.size(); i++) {
+                    stringConnection.setEx(keys.get(i), windowSeconds, digests.get(i));
+                }
+                return null;
+            });
+        } catch (RuntimeException exception) {
+            log.warn("Remembering {} published assets failed", keys.size());
+            log.debug(exception.getMessage());
+        }
+    }
+
+    private static String key(String mspId, CatenaXAssetRequestDto asset)
+    {
+        if (asset.getUniqueData() == null || asset.getUniqueData().getManufacturerUniqueID() == null
+                || asset.getStaticData() == null || asset.getStaticData().getPartNumberManufacturer() == null) {
+            return null;
+        }
+        return KEY_PREFIX + mspId + ":" + asset.getUniqueData().getManufacturerUniqueID()
+                + ":" + asset.getStaticData().getPartNumberManufacturer();
+    }
+
+    private static byte[] digest(String key, CatenaXAssetRequestDto asset)
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(key.getBytes(StandardCharsets.UTF_8));
+            digest.update(CONTENT_WRITER.writeValueAsBytes(asset));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not hash asset", e);
+        }
+    }
+}
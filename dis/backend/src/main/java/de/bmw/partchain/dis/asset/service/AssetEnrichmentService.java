@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.gateway.AssetEnrichmentGateway;
+import de.bmw.partchain.dis.asset.model.gateway.AssetEnrichmentPatch;
+import de.bmw.partchain.dis.asset.service.cdq.bpn.BusinessPartnerLookup;
+import de.bmw.partchain.dis.asset.service.cdq.bpn.LookupBusinessPartnersService;
+import de.bmw.partchain.dis.config.BulkProcessingConfig;
+import de.bmw.partchain.dis.resilience.TenantFairExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the business partner names of already published assets in the background and publishes them as
+ * enrichment patches, so that ingest does not wait for the BPN lookups when running in deferred mode.
+ */
+@Slf4j
+@Service
+public class AssetEnrichmentService
+{
+    public static final String DEFERRED_MODE = "deferred";
+
+    private final LookupBusinessPartnersService lookupBusinessPartnersService;
+    private final AssetEnrichmentGateway enrichmentGateway;
+    private final TenantFairExecutor executor;
+    private final boolean deferred;
+
+    public AssetEnrichmentService(LookupBusinessPartnersService lookupBusinessPartnersService,
+                                  AssetEnrichmentGateway enrichmentGateway,
+                                  @Qualifier(BulkProcessingConfig.BACKGROUND_INGEST_EXECUTOR) TenantFairExecutor executor,
+                                  @Value(value = "${cdq.bpn.enrichment.mode:sync}") String mode)
+    {
+        this.lookupBusinessPartnersService = lookupBusinessPartnersService;
+        this.enrichmentGateway = enrichmentGateway;
+        this.executor = executor;
+        this.deferred = DEFERRED_MODE.equalsIgnoreCase(mode);
+        log.info("[INIT LOAD] AssetEnrichmentService initialized in {} mode.", deferred ? DEFERRED_MODE : "sync");
+    }
+
+    public boolean isDeferred()
+    {
+        return deferred;
+    }
+
+    /**
+     * Schedules the lookup of the given custom fields, mapped to the OneID whose name they hold.
+     */
+    public void enrichLater(String requestProcessId, String mspId, String serialNumberManufacturer,
+                            Map<String, String> businessPartnerOneIds, String countryCode)
+    {
+        if (businessPartnerOneIds.isEmpty()) {
+            return;
+        }
+        executor.execute(mspId, () -> enrich(requestProcessId, mspId, serialNumberManufacturer, businessPartnerOneIds, countryCode));
+    }
+
+    private void enrich(String requestProcessId, String mspId, String serialNumberManufacturer,
+                        Map<String, String> businessPartnerOneIds, String countryCode)
+    {
+        try {
+            Set<BusinessPartnerLookup> lookups = new LinkedHashSet<>();
+            businessPartnerOneIds.values().forEach(oneId -> lookups.add(new BusinessPartnerLookup(oneId, countryCode)));
+            Map<String, String> names = lookupBusinessPartnersService.getBusinessPartnerNames(lookups);
+
+            Map<String, String> customFields = new LinkedHashMap<>();
+            businessPartnerOneIds.forEach((field, oneId) -> {
+                String name = names.get(oneId);
+                if (name != null) {
+                    customFields.put(field, name);
+                }
+            });
+            if (customFields.isEmpty()) {
+                return;
+            }
+
+            AssetEnrichmentPatch patch = new AssetEnrichmentPatch();
+            patch.setRequestProcessId(requestProcessId);
+            patch.setMspId(mspId);
+            patch.setSerialNumberManufacturer(serialNumberManufacturer);
+            patch.setCustomFields(customFields);
+            enrichmentGateway.publishEnrichment(patch);
+        } catch (Exception e) {
+            log.warn("Unable to enrich asset {} with BPN data", serialNumberManufacturer);
+            log.debug(e.getMessage());
+        }
+    }
+}
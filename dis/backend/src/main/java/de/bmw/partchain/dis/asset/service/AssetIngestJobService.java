@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.response.AssetIngestJobResponseDto;
+import de.bmw.partchain.dis.asset.model.response.AssetIngestJobStatus;
+import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import de.bmw.partchain.dis.asset.repository.AssetIngestJobStore;
+import de.bmw.partchain.dis.config.BulkProcessingConfig;
+import de.bmw.partchain.dis.resilience.TenantFairExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs bulk ingest requests in the background and keeps their progress in the {@link AssetIngestJobStore},
+ * so that clients can poll for the result instead of holding the connection open.
+ */
+@Slf4j
+@Service
+public class AssetIngestJobService
+{
+    private final AssetBulkService assetBulkService;
+    private final AssetIngestJobStore jobStore;
+    private final TenantFairExecutor executor;
+
+    @Value(value = "${bulk.job.progress-interval:500}")
+    private int progressInterval;
+
+    public AssetIngestJobService(AssetBulkService assetBulkService, AssetIngestJobStore jobStore,
+                                 @Qualifier(BulkProcessingConfig.BULK_JOB_EXECUTOR) TenantFairExecutor executor)
+    {
+        this.assetBulkService = assetBulkService;
+        this.jobStore = jobStore;
+        this.executor = executor;
+    }
+
+    /**
+     * @throws RejectedExecutionException if too many jobs are already waiting to be processed
+     */
+    public AssetIngestJobResponseDto submit(List<CatenaXAssetRequestDto> assets, String mspId)
+    {
+        SentToLedgerResponseDto responseDto = new SentToLedgerResponseDto();
+        responseDto.setMspId(mspId);
+
+        AssetIngestJobResponseDto job = AssetIngestJobResponseDto.builder()
+                .requestProcessId(responseDto.getRequestProcessId())
+                .status(AssetIngestJobStatus.QUEUED)
+                .totalAssets(assets.size())
+                .createdDate(responseDto.getRequestDate())
+                .updatedDate(responseDto.getRequestDate())
+                .build();
+        jobStore.save(mspId, job);
+
+        try {
+            executor.execute(mspId,
+                    new DelegatingSecurityContextRunnable(() -> run(job.toBuilder().build(), responseDto, assets)));
+        } catch (RejectedExecutionException exception) {
+            job.setErrorMessage("Too many bulk jobs in progress");
+            update(mspId, job, AssetIngestJobStatus.FAILED, responseDto);
+            throw exception;
+        }
+        return job;
+    }
+
+    public Optional<AssetIngestJobResponseDto> findById(String requestProcessId, String mspId)
+    {
+        return jobStore.findById(mspId, requestProcessId);
+    }
+
+    private void run(AssetIngestJobResponseDto job, SentToLedgerResponseDto responseDto,
+                     List<CatenaXAssetRequestDto> assets)
+    {
+        String mspId = responseDto.getMspId();
+        update(mspId, job, AssetIngestJobStatus.RUNNING, responseDto);
+
+        try {
+            AssetIngestPipeline pipeline = assetBulkService.openInBackground(responseDto);
+            pipeline.indexRequest(assets);
+            pipeline.prefetch(assets);
+            int submitted = 0;
+            for (int index : pipeline.submissionOrder()) {
+                pipeline.submit(index, assets.get(index));
+                if (++submitted % progressInterval == 0) {
+                    update(mspId, job, AssetIngestJobStatus.RUNNING, responseDto);
+                }
+            }
+            job.setResult(pipeline.complete());
+            update(mspId, job, AssetIngestJobStatus.COMPLETED, responseDto);
+        } catch (Exception exception) {
+            log.error(String.format("Bulk job %s failed", job.getRequestProcessId()), exception);
+            job.setErrorMessage(exception.getMessage());
+            update(mspId, job, AssetIngestJobStatus.FAILED, responseDto);
+        }
+    }
+
+    private void update(String mspId, AssetIngestJobResponseDto job, AssetIngestJobStatus status,
+                        SentToLedgerResponseDto responseDto)
+    {
+        job.setStatus(status);
+        job.setProcessedCount(responseDto.getProcessedAssets().size());
+        job.setFailedCount(responseDto.getFailedAssets().size());
+        job.setSkippedCount(responseDto.getSkippedAssets().size());
+        job.setUpdatedDate(new Date());
+        // The store may hand out the saved instance to pollers, so they get a snapshot of the job
+        jobStore.save(mspId, job.toBuilder().build());
+    }
+}
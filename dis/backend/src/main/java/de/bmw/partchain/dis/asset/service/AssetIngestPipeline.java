@@ -0,0 +1,310 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.gateway.LedgerTransaction;
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.response.AssetFailType;
+import de.bmw.partchain.dis.asset.model.response.AssetFailedReportResponseDto;
+import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import de.bmw.partchain.dis.asset.service.cdq.bpn.BusinessPartnerNames;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Ingests the assets of one bulk request in parallel on a shared executor. Submitted assets are gathered in
+ * batches whose business partner names are resolved at once before the assets are handed to the executor. An asset
+ * stays pending until the ledger acknowledged it, at most {@code maxInFlight} assets are pending at any time, and the
+ * response lists the processed, failed and skipped assets with their original indices in ascending order. With a
+ * ledger transaction the valid assets are only buffered and published together with the ingest report on completion,
+ * all or nothing. With deduplication the assets of a batch which were published unchanged before are reported as
+ * skipped before their business partner names are resolved.
+ * <p>
+ * When the whole request is indexed up front, exact copies of an asset within the request are skipped, copies with
+ * differing content fail as conflicts and assets on or above a cycle of the part tree fail. The assets are then
+ * submitted children first, and a level of the part tree is only started once the ledger acknowledged the level
+ * below. Not thread safe, a pipeline is meant to be fed by the request thread only.
+ */
+@Slf4j
+public class AssetIngestPipeline
+{
+    private final AssetIngestService assetIngestService;
+    private final Executor executor;
+    private final SentToLedgerResponseDto responseDto;
+    private final BusinessPartnerNames businessPartnerNames;
+    private final LedgerTransaction transaction;
+    private final AssetDeduplicationService deduplication;
+    private final boolean rejectDanglingChildren;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final List<Integer> batchIndexes = new ArrayList<>();
+    private final List<CatenaXAssetRequestDto> batchAssets = new ArrayList<>();
+    private final Deque<PendingAsset> inFlight = new ArrayDeque<>();
+    private final List<CatenaXAssetRequestDto> publishedAssets = new ArrayList<>();
+    private BulkAssetIndex bulkIndex;
+    private int level;
+
+    AssetIngestPipeline(AssetIngestService assetIngestService, Executor executor,
+                        SentToLedgerResponseDto responseDto, BusinessPartnerNames businessPartnerNames,
+                        LedgerTransaction transaction, AssetDeduplicationService deduplication,
+                        boolean rejectDanglingChildren, int maxInFlight, int batchSize)
+    {
+        this.assetIngestService = assetIngestService;
+        this.executor = executor;
+        this.responseDto = responseDto;
+        this.businessPartnerNames = businessPartnerNames;
+        this.transaction = transaction;
+        this.deduplication = deduplication;
+        this.rejectDanglingChildren = rejectDanglingChildren;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Resolves the business partner names of all assets up front, used when the whole request is already in
+     * memory so that every distinct OneID is looked up exactly once. Left out with deduplication, which would
+     * skip some of the assets afterwards.
+     */
+    public void prefetch(Collection<CatenaXAssetRequestDto> assets)
+    {
+        if (deduplication != null) {
+            return;
+        }
+        businessPartnerNames.resolve(assets);
+    }
+
+    /**
+     * Indexes the serial numbers and the part tree of the whole request, so that the assets have to be submitted
+     * with their position in the given list as index, in the order given by {@link #submissionOrder()}.
+     */
+    public void indexRequest(List<CatenaXAssetRequestDto> assets)
+    {
+        bulkIndex = BulkAssetIndex.of(assets);
+    }
+
+    /**
+     * @return the positions of the indexed request with children before their parents
+     */
+    public int[] submissionOrder()
+    {
+        return bulkIndex.topologicalOrder();
+    }
+
+    public void submit(int index, CatenaXAssetRequestDto asset)
+    {
+        if (bulkIndex != null && !admitIndexed(index, asset)) {
+            return;
+        }
+        batchIndexes.add(index);
+        batchAssets.add(asset);
+        if (batchAssets.size() >= batchSize) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Records a failure for an asset which could not even be submitted, keeping it in order with the pending ones.
+     */
+    public void fail(int index, AssetFailType failType, List<String> failReasons)
+    {
+        fail(new AssetFailedReportResponseDto(index, failType, failReasons));
+    }
+
+    /**
+     * Waits for all pending assets and publishes the ingest report of the failed ones.
+     */
+    public SentToLedgerResponseDto complete()
+    {
+        flushBatch();
+        while (!inFlight.isEmpty()) {
+            collect(inFlight.poll());
+        }
+        Collections.sort(responseDto.getSkippedAssets());
+        if (bulkIndex != null) {
+            Collections.sort(responseDto.getProcessedAssets());
+            responseDto.getFailedAssets().sort(Comparator.comparingInt(AssetFailedReportResponseDto::getIndex));
+        }
+        if (transaction != null) {
+            try {
+                transaction.commit(() -> assetIngestService.publishFailedAssets(responseDto));
+                rememberPublishedAssets();
+                return responseDto;
+            } catch (RuntimeException exception) {
+                log.warn("Ledger transaction of request {} aborted", responseDto.getRequestProcessId());
+                log.debug(exception.getMessage());
+                assetIngestService.failProcessedAssets(responseDto, "Ledger transaction aborted: " + exception.getMessage());
+            }
+        }
+        rememberPublishedAssets();
+        assetIngestService.publishFailedAssets(responseDto);
+        return responseDto;
+    }
+
+    private void flushBatch()
+    {
+        if (batchAssets.isEmpty()) {
+            return;
+        }
+        if (deduplication != null) {
+            skipUnchangedAssets();
+        }
+        businessPartnerNames.resolve(batchAssets);
+
+        String requestProcessId = responseDto.getRequestProcessId();
+        for (int i = 0; i < batchAssets.size(); i++) {
+            int index = batchIndexes.get(i);
+            CatenaXAssetRequestDto asset = batchAssets.get(i);
+            inFlight.add(new PendingAsset(index, asset, CompletableFuture.supplyAsync(
+                    () -> assetIngestService.ingest(index, asset, requestProcessId, businessPartnerNames, transaction), executor)
+                    .thenCompose(Function.identity())));
+
+            while (inFlight.size() >= maxInFlight) {
+                collect(inFlight.poll());
+            }
+        }
+        batchIndexes.clear();
+        batchAssets.clear();
+    }
+
+    private void collect(PendingAsset pendingAsset)
+    {
+        Optional<AssetFailedReportResponseDto> failure;
+        try {
+            failure = pendingAsset.result.join();
+        } catch (CompletionException exception) {
+            failure = Optional.of(new AssetFailedReportResponseDto(pendingAsset.index, AssetFailType.OTHER,
+                    Collections.singletonList(exception.getCause().getMessage())));
+        }
+        assetIngestService.record(responseDto, pendingAsset.index, failure);
+        if (deduplication != null && !failure.isPresent()) {
+            publishedAssets.add(pendingAsset.asset);
+            // Within a transaction the assets count as published only once it is committed
+            if (transaction == null && publishedAssets.size() >= batchSize) {
+                rememberPublishedAssets();
+            }
+        }
+    }
+
+    /**
+     * @return whether the asset of an indexed request is to be published
+     */
+    private boolean admitIndexed(int index, CatenaXAssetRequestDto asset)
+    {
+        if (bulkIndex.isConflicting(index)) {
+            failConflict(index, asset);
+            return false;
+        }
+        if (bulkIndex.isCyclic(index)) {
+            fail(index, AssetFailType.PART_TREE, Collections.singletonList(
+                    "partTree of the request has a cycle through or below this asset"));
+            return false;
+        }
+        if (bulkIndex.isDuplicate(index)) {
+            responseDto.addSkippedAssetIndex(index);
+            return false;
+        }
+        if (rejectDanglingChildren && bulkIndex.hasDanglingChildren(index)) {
+            fail(index, AssetFailType.PART_TREE, Collections.singletonList(
+                    "partTree.isParentOf references assets not in the request: " + bulkIndex.danglingChildren(asset)));
+            return false;
+        }
+        if (bulkIndex.level(index) > level) {
+            flushBatch();
+            while (!inFlight.isEmpty()) {
+                collect(inFlight.poll());
+            }
+            level = bulkIndex.level(index);
+        }
+        return true;
+    }
+
+    private void failConflict(int index, CatenaXAssetRequestDto asset)
+    {
+        List<Integer> group = bulkIndex.groupIndexes(index);
+        AssetFailedReportResponseDto failure = new AssetFailedReportResponseDto(index, AssetFailType.CONFLICT,
+                Collections.singletonList(String.format(
+                        "manufacturerUniqueID %s occurs %d times with differing content in the request",
+                        BulkAssetIndex.serialNumber(asset), group.size())));
+        failure.setConflictingAssets(group);
+        fail(failure);
+    }
+
+    private void fail(AssetFailedReportResponseDto failure)
+    {
+        // The results of an indexed request are sorted on completion, so only a stream has to keep them in order
+        if (bulkIndex == null) {
+            flushBatch();
+        }
+        inFlight.add(new PendingAsset(failure.getIndex(), null, CompletableFuture.completedFuture(Optional.of(failure))));
+        while (inFlight.size() >= maxInFlight) {
+            collect(inFlight.poll());
+        }
+    }
+
+    private void skipUnchangedAssets()
+    {
+        boolean[] unchanged = deduplication.findUnchanged(responseDto.getMspId(), batchAssets);
+        int kept = 0;
+        for (int i = 0; i < unchanged.length; i++) {
+            if (unchanged[i]) {
+                responseDto.addSkippedAssetIndex(batchIndexes.get(i));
+            } else {
+                batchIndexes.set(kept, batchIndexes.get(i));
+                batchAssets.set(kept, batchAssets.get(i));
+                kept++;
+            }
+        }
+        batchIndexes.subList(kept, batchIndexes.size()).clear();
+        batchAssets.subList(kept, batchAssets.size()).clear();
+    }
+
+    private void rememberPublishedAssets()
+    {
+        if (deduplication != null && !publishedAssets.isEmpty()) {
+            deduplication.remember(responseDto.getMspId(), publishedAssets);
+            publishedAssets.clear();
+        }
+    }
+
+    private static final class PendingAsset
+    {
+        private final int index;
+        private final CatenaXAssetRequestDto asset;
+        private final CompletableFuture<Optional<AssetFailedReportResponseDto>> result;
+
+        private PendingAsset(int index, CatenaXAssetRequestDto asset,
+                             CompletableFuture<Optional<AssetFailedReportResponseDto>> result)
+        {
+            this.index = index;
+            this.asset = asset;
+            this.result = result;
+        }
+    }
+}
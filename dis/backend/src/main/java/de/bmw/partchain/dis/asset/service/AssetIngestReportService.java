@@ -19,24 +19,53 @@ package de.bmw.partchain.dis.asset.service;
 
 import de.bmw.partchain.dis.asset.gateway.AssetImportReportGateway;
 import de.bmw.partchain.dis.asset.mapper.AssetIngestReportMapper;
+import de.bmw.partchain.dis.asset.model.gateway.AggregatedAssetIngestReport;
+import de.bmw.partchain.dis.asset.model.gateway.AssetIngestFailureGroup;
+import de.bmw.partchain.dis.asset.model.response.AssetFailedReportResponseDto;
 import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class AssetIngestReportService
 {
+    public static final String AGGREGATED_MODE = "aggregated";
+    private static final String SOURCE_SERVICE = "DIS";
+
     private final AssetIngestReportMapper mapper;
     private final AssetImportReportGateway gateway;
+    private final boolean aggregated;
+    private final int chunkSize;
 
+    /**
+     * @param mode      {@value #AGGREGATED_MODE} publishes the failed assets of a request in aggregated records,
+     *                  otherwise every failed asset is published on its own
+     * @param chunkSize maximum number of failed assets per aggregated record, 0 for one record per request
+     */
     public AssetIngestReportService(AssetIngestReportMapper mapper,
-                                    AssetImportReportGateway gateway)
+                                    AssetImportReportGateway gateway,
+                                    @Value(value = "${airs.report.mode:single}") String mode,
+                                    @Value(value = "${airs.report.chunk-size:10000}") int chunkSize)
     {
         this.mapper = mapper;
         this.gateway = gateway;
+        this.aggregated = AGGREGATED_MODE.equalsIgnoreCase(mode);
+        this.chunkSize = chunkSize;
     }
 
     public void publishAssetIngestReport(SentToLedgerResponseDto sentToLedgerResponseDto)
     {
+        if (aggregated) {
+            aggregate(sentToLedgerResponseDto).forEach(gateway::publishAggregatedAssetIngestReport);
+            return;
+        }
         sentToLedgerResponseDto.getFailedAssets()
                 .stream()
                 .map(failedAssetResponseDto ->
@@ -44,4 +73,82 @@ public class AssetIngestReportService
                 )
                 .forEach(gateway::publishAssetIngestReport);
     }
+
+    private List<AggregatedAssetIngestReport> aggregate(SentToLedgerResponseDto sentToLedgerResponseDto)
+    {
+        List<AssetFailedReportResponseDto> failedAssets = sentToLedgerResponseDto.getFailedAssets();
+        int size = chunkSize > 0 ? chunkSize : Math.max(1, failedAssets.size());
+        int chunkCount = (failedAssets.size() + size - 1) / size;
+
+        List<AggregatedAssetIngestReport> reports = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            List<AssetFailedReportResponseDto> chunkAssets =
+                    failedAssets.subList(chunk * size, Math.min(failedAssets.size(), (chunk + 1) * size));
+            AggregatedAssetIngestReport report = aggregateChunk(chunkAssets);
+            report.setRequestProcessId(sentToLedgerResponseDto.getRequestProcessId());
+            report.setRequestDate(sentToLedgerResponseDto.getRequestDate());
+            report.setMspId(sentToLedgerResponseDto.getMspId());
+            report.setSourceService(SOURCE_SERVICE);
+            report.setChunkIndex(chunk);
+            report.setChunkCount(chunkCount);
+            reports.add(report);
+        }
+        return reports;
+    }
+
+    private static AggregatedAssetIngestReport aggregateChunk(List<AssetFailedReportResponseDto> failedAssets)
+    {
+        Map<String, Integer> failReasons = new LinkedHashMap<>();
+        Map<String, Integer> warnings = new LinkedHashMap<>();
+        Map<List<Object>, AssetIngestFailureGroup> groups = new LinkedHashMap<>();
+
+        for (AssetFailedReportResponseDto failedAsset : failedAssets) {
+            List<Integer> reasonIds = positions(failReasons, failedAsset.getFailReasons());
+            List<Integer> warningIds = positions(warnings, failedAsset.getWarnings());
+            AssetIngestFailureGroup group = groups.computeIfAbsent(
+                    Arrays.asList(failedAsset.getFailType(), reasonIds, warningIds), key -> {
+                        AssetIngestFailureGroup newGroup = new AssetIngestFailureGroup();
+                        newGroup.setFailType(failedAsset.getFailType());
+                        newGroup.setFailReasons(reasonIds);
+                        newGroup.setWarnings(warningIds);
+                        newGroup.setIndexRanges(new ArrayList<>());
+                        return newGroup;
+                    });
+            addIndex(group.getIndexRanges(), failedAsset.getIndex());
+        }
+
+        AggregatedAssetIngestReport report = new AggregatedAssetIngestReport();
+        report.setFailedAssetCount(failedAssets.size());
+        report.setFailReasons(new ArrayList<>(failReasons.keySet()));
+        report.setWarnings(new ArrayList<>(warnings.keySet()));
+        report.setFailures(new ArrayList<>(groups.values()));
+        return report;
+    }
+
+    private static List<Integer> positions(Map<String, Integer> distinctValues, List<String> values)
+    {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> positions = new ArrayList<>(values.size());
+        for (String value : values) {
+            positions.add(distinctValues.computeIfAbsent(value, key -> distinctValues.size()));
+        }
+        return positions;
+    }
+
+    /**
+     * Extends the last range if the index follows it, the failed assets are recorded in ascending index order.
+     */
+    private static void addIndex(List<int[]> indexRanges, int index)
+    {
+        if (!indexRanges.isEmpty()) {
+            int[] last = indexRanges.get(indexRanges.size() - 1);
+            if (last[1] + 1 == index) {
+                last[1] = index;
+                return;
+            }
+        }
+        indexRanges.add(new int[]{index, index});
+    }
 }
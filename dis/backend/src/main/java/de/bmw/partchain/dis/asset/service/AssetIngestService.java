@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.gateway.LedgerTransaction;
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.response.AssetFailType;
+import de.bmw.partchain.dis.asset.model.response.AssetFailedReportResponseDto;
+import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import de.bmw.partchain.dis.asset.service.cdq.bpn.BusinessPartnerNames;
+import de.bmw.partchain.dis.asset.validator.CatenaXAssetRequestValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Validates a single asset of an ingest request and hands it over to the ledger, recording the outcome
+ * in the response of the request it belongs to.
+ */
+@Slf4j
+@Service
+public class AssetIngestService
+{
+    private final AssetService assetService;
+    private final AssetIngestReportService failedAssetReportService;
+    private final CatenaXAssetRequestValidator assetValidator;
+    private final IngestLoadSheddingService loadSheddingService;
+
+    public AssetIngestService(AssetService assetService, AssetIngestReportService failedAssetReportService,
+                              CatenaXAssetRequestValidator assetValidator,
+                              IngestLoadSheddingService loadSheddingService)
+    {
+        this.assetService = assetService;
+        this.failedAssetReportService = failedAssetReportService;
+        this.assetValidator = assetValidator;
+        this.loadSheddingService = loadSheddingService;
+    }
+
+    public void ingest(SentToLedgerResponseDto responseDto, int index, CatenaXAssetRequestDto asset)
+    {
+        record(responseDto, index, ingest(index, asset, responseDto.getRequestProcessId(),
+                assetService.newBusinessPartnerNames(), null).join());
+    }
+
+    /**
+     * Thread safe variant which leaves it to the caller to record the outcome in the response.
+     *
+     * @param transaction the ledger transaction of the request, {@code null} to send the asset right away
+     * @return completes with the failure report of the asset, empty once the ledger acknowledged it or it was added
+     * to the transaction
+     */
+    public CompletableFuture<Optional<AssetFailedReportResponseDto>> ingest(int index, CatenaXAssetRequestDto asset,
+                                                         String requestProcessId,
+                                                         BusinessPartnerNames businessPartnerNames,
+                                                         LedgerTransaction transaction)
+    {
+        long start = System.nanoTime();
+        List<String> failReasons = assetValidator.validate(asset);
+
+        if (failReasons.isEmpty()) {
+            return processValidAsset(index, asset, requestProcessId, businessPartnerNames, transaction)
+                    .whenComplete((failure, exception) ->
+                            loadSheddingService.recordAssetLatency(System.nanoTime() - start));
+        } else {
+            return CompletableFuture.completedFuture(
+                    Optional.of(new AssetFailedReportResponseDto(index, AssetFailType.VALIDATION, failReasons)));
+        }
+    }
+
+    public void record(SentToLedgerResponseDto responseDto, int index, Optional<AssetFailedReportResponseDto> failure)
+    {
+        if (failure.isPresent()) {
+            responseDto.getFailedAssets().add(failure.get());
+        } else {
+            responseDto.addProcessedAssetIndex(index);
+        }
+    }
+
+    public void publishFailedAssets(SentToLedgerResponseDto responseDto)
+    {
+        if (!responseDto.getFailedAssets().isEmpty()) {
+            failedAssetReportService.publishAssetIngestReport(responseDto);
+        }
+    }
+
+    /**
+     * Turns all processed assets of the response into failed ones, used when their ledger transaction was aborted.
+     */
+    public void failProcessedAssets(SentToLedgerResponseDto responseDto, String failReason)
+    {
+        for (Integer index : responseDto.getProcessedAssets()) {
+            responseDto.addFailedAsset(index, AssetFailType.OTHER, Collections.singletonList(failReason));
+        }
+        responseDto.getProcessedAssets().clear();
+        responseDto.getFailedAssets().sort(Comparator.comparingInt(AssetFailedReportResponseDto::getIndex));
+    }
+
+    private CompletableFuture<Optional<AssetFailedReportResponseDto>> processValidAsset(
+            int index, CatenaXAssetRequestDto asset, String requestProcessId, BusinessPartnerNames businessPartnerNames,
+            LedgerTransaction transaction)
+    {
+        try {
+            CompletableFuture<Void> ledgerSend = transaction == null
+                    ? assetService.sendToLedger(asset, requestProcessId, businessPartnerNames)
+                    : assetService.sendToLedger(asset, requestProcessId, businessPartnerNames, transaction);
+            return ledgerSend
+                    .handle((sent, exception) -> exception == null
+                            ? Optional.<AssetFailedReportResponseDto>empty()
+                            : Optional.of(sendFailure(index, exception)));
+        } catch (Exception exception) {
+            return CompletableFuture.completedFuture(Optional.of(sendFailure(index, exception)));
+        }
+    }
+
+    private static AssetFailedReportResponseDto sendFailure(int index, Throwable exception)
+    {
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                ? exception.getCause() : exception;
+        return new AssetFailedReportResponseDto(index, AssetFailType.OTHER,
+                Collections.singletonList(cause.getMessage()));
+    }
+}
@@ -18,14 +18,20 @@
 package de.bmw.partchain.dis.asset.service;
 
 import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.gateway.LedgerTransaction;
 import de.bmw.partchain.dis.asset.mapper.AssetMapper;
 import de.bmw.partchain.dis.asset.model.gateway.Asset;
 import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
 import de.bmw.partchain.dis.asset.model.request.StaticDataDto;
+import de.bmw.partchain.dis.asset.service.cdq.bpn.BusinessPartnerNames;
 import de.bmw.partchain.dis.asset.service.cdq.bpn.LookupBusinessPartnersService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 public class AssetService {
@@ -36,49 +42,125 @@ public class AssetService {
     private final AssetGateway ledgerGateway;
     private final AssetMapper mapper;
     private final LookupBusinessPartnersService lookupBusinessPartnersService;
+    private final AssetEnrichmentService assetEnrichmentService;
 
-    public AssetService(AssetGateway ledgerGateway, AssetMapper mapper, LookupBusinessPartnersService lookupBusinessPartnersService) {
+    public AssetService(AssetGateway ledgerGateway, AssetMapper mapper, LookupBusinessPartnersService lookupBusinessPartnersService,
+                        AssetEnrichmentService assetEnrichmentService) {
         this.ledgerGateway = ledgerGateway;
         this.mapper = mapper;
         this.lookupBusinessPartnersService = lookupBusinessPartnersService;
+        this.assetEnrichmentService = assetEnrichmentService;
+    }
+
+    public CompletableFuture<Void> sendToLedger(CatenaXAssetRequestDto assetRequestDto, String requestProcessId) {
+        return sendToLedger(assetRequestDto, requestProcessId, newBusinessPartnerNames());
+    }
+
+    /**
+     * @return completes once the ledger acknowledged the asset
+     */
+    public CompletableFuture<Void> sendToLedger(CatenaXAssetRequestDto assetRequestDto, String requestProcessId,
+                                                BusinessPartnerNames businessPartnerNames) {
+        return sendToLedger(assetRequestDto, requestProcessId, businessPartnerNames, ledgerGateway, null);
+    }
+
+    /**
+     * Variant adding the asset to a ledger transaction, see {@link #beginTransaction()}. A deferred enrichment of the
+     * asset is only scheduled once the transaction committed.
+     *
+     * @return completes once the asset was added to the transaction
+     */
+    public CompletableFuture<Void> sendToLedger(CatenaXAssetRequestDto assetRequestDto, String requestProcessId,
+                                                BusinessPartnerNames businessPartnerNames,
+                                                LedgerTransaction transaction) {
+        return sendToLedger(assetRequestDto, requestProcessId, businessPartnerNames, transaction, transaction);
+    }
+
+    /**
+     * Starts a transaction in which the ledger records of one request are published all or nothing.
+     */
+    public LedgerTransaction beginTransaction() {
+        return ledgerGateway.beginTransaction();
     }
 
-    public void sendToLedger(CatenaXAssetRequestDto assetRequestDto, String requestProcessId) {
+    private CompletableFuture<Void> sendToLedger(CatenaXAssetRequestDto assetRequestDto, String requestProcessId,
+                                                 BusinessPartnerNames businessPartnerNames, AssetGateway gateway,
+                                                 LedgerTransaction transaction) {
         Asset assetKafkaEntity = mapper.mapFrom(assetRequestDto);
         assetKafkaEntity.setRequestProcessId(requestProcessId);
 
-        enrichAssetWithBPN(assetKafkaEntity, assetRequestDto);
+        if (assetEnrichmentService.isDeferred()) {
+            CompletableFuture<Void> sent = gateway.sendToLedger(assetKafkaEntity);
+            if (transaction == null) {
+                // An asset which did not reach the ledger must not get an enrichment patch
+                return sent.thenRun(() -> enrichAssetWithBPNLater(assetKafkaEntity, assetRequestDto));
+            }
+            transaction.afterCommit(() -> enrichAssetWithBPNLater(assetKafkaEntity, assetRequestDto));
+            return sent;
+        }
+
+        enrichAssetWithBPN(assetKafkaEntity, assetRequestDto, businessPartnerNames);
+
+        return gateway.sendToLedger(assetKafkaEntity);
+    }
 
-        ledgerGateway.sendToLedger(assetKafkaEntity);
+    /**
+     * Creates the request scoped business partner names cache to be passed to {@link #sendToLedger}.
+     */
+    public BusinessPartnerNames newBusinessPartnerNames() {
+        return new BusinessPartnerNames(lookupBusinessPartnersService, !assetEnrichmentService.isDeferred());
     }
 
-    private void enrichAssetWithBPN(Asset assetKafkaEntity, CatenaXAssetRequestDto assetRequestDto) {
+    private void enrichAssetWithBPN(Asset assetKafkaEntity, CatenaXAssetRequestDto assetRequestDto,
+                                    BusinessPartnerNames businessPartnerNames) {
         log.debug("Enriching asset with BPN data.");
 
         try {
             String productionCountryCode = assetRequestDto.getIndividualData().getProductionCountryCode();
-            StaticDataDto staticData = assetRequestDto.getStaticData();
-
-            if (!staticData.getManufactureContractOneID().isEmpty()) {
-                assetKafkaEntity.getCustomFields().put(BUSINESS_PARTNER_NAME, lookupBusinessPartnersService.
-                        getBusinessPartnerName(staticData.getManufactureContractOneID(), productionCountryCode));
-            }
-            if (staticData.getManufacturerOneID().isEmpty()) {
-                assetKafkaEntity.getCustomFields().put(BUSINESS_PARTNER_PLANT_NAME, lookupBusinessPartnersService.
-                        getBusinessPartnerName(staticData.getManufacturerOneID(), productionCountryCode));
-            }
-            if (!staticData.getCustomerContractOneID().isEmpty()) {
-                assetKafkaEntity.getCustomFields().put(CUSTOMER_PARTNER_NAME, lookupBusinessPartnersService.
-                        getBusinessPartnerName(staticData.getCustomerContractOneID(), productionCountryCode));
-            }
-            if (!staticData.getCustomerOneID().isEmpty()) {
-                assetKafkaEntity.getCustomFields().put(CUSTOMER_PARTNER_PLANT_NAME, lookupBusinessPartnersService.
-                        getBusinessPartnerName(staticData.getCustomerOneID(), productionCountryCode));
-            }
-
+            businessPartnerOneIds(assetRequestDto.getStaticData()).forEach((field, oneId) ->
+                    assetKafkaEntity.getCustomFields().put(field, businessPartnerNames.getName(oneId, productionCountryCode)));
         } catch (Exception e) {
             log.warn("Unable to fetch BPN data");
             log.debug(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs once the asset is on the ledger, so a failure to schedule the enrichment must not fail the asset.
+     */
+    private void enrichAssetWithBPNLater(Asset assetKafkaEntity, CatenaXAssetRequestDto assetRequestDto) {
+        if (assetRequestDto.getStaticData() == null || assetRequestDto.getIndividualData() == null) {
+            return;
+        }
+        try {
+            assetEnrichmentService.enrichLater(assetKafkaEntity.getRequestProcessId(), assetKafkaEntity.getMspId(),
+                    assetKafkaEntity.getSerialNumberManufacturer(), businessPartnerOneIds(assetRequestDto.getStaticData()),
+                    assetRequestDto.getIndividualData().getProductionCountryCode());
+        } catch (Exception e) {
+            log.warn("Unable to schedule BPN enrichment of asset {}", assetKafkaEntity.getSerialNumberManufacturer());
+            log.debug(e.getMessage());
+        }
+    }
+
+    /**
+     * @return the BPN custom fields of the asset mapped to the OneID whose name they hold
+     */
+    private static Map<String, String> businessPartnerOneIds(StaticDataDto staticData) {
+        Map<String, String> oneIds = new LinkedHashMap<>();
+        putIfNotEmpty(oneIds, BUSINESS_PARTNER_NAME, staticData.getManufactureContractOneID());
+        putIfNotEmpty(oneIds, BUSINESS_PARTNER_PLANT_NAME, staticData.getManufacturerOneID());
+        putIfNotEmpty(oneIds, CUSTOMER_PARTNER_NAME, staticData.getCustomerContractOneID());
+        putIfNotEmpty(oneIds, CUSTOMER_PARTNER_PLANT_NAME, staticData.getCustomerOneID());
+        return oneIds;
+    }
+
+    private static void putIfNotEmpty(Map<String, String> oneIds, String field, String oneId) {
+        if (!isNullOrEmpty(oneId)) {
+            oneIds.put(field, oneId);
+        }
+    }
+
+    private static boolean isNullOrEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
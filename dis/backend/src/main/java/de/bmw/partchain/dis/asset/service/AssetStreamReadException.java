@@ -0,0 +1,36 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+@Getter
+public class AssetStreamReadException extends IOException
+{
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+
+    public AssetStreamReadException(int index, String message)
+    {
+        super(message);
+        this.index = index;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Reads assets one by one from either a JSON array or a newline delimited JSON stream, so that the
+ * whole payload never has to be held in memory.
+ */
+@Component
+public class AssetStreamReader
+{
+    private final ObjectReader assetReader;
+
+    public AssetStreamReader(ObjectMapper objectMapper)
+    {
+        this.assetReader = objectMapper.readerFor(CatenaXAssetRequestDto.class);
+    }
+
+    /**
+     * Hands every decoded asset together with its index to the consumer as soon as it is read.
+     *
+     * @return the number of assets read
+     * @throws AssetStreamReadException if the stream is not valid JSON, the index points to the asset that
+     *                                  could not be read
+     */
+    public int read(InputStream inputStream, ObjIntConsumer<CatenaXAssetRequestDto> consumer) throws IOException
+    {
+        int index = 0;
+        try (JsonParser parser = assetReader.getFactory().createParser(inputStream)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new AssetStreamReadException(index, "Expected an asset object but found " + token);
+                }
+                CatenaXAssetRequestDto asset = assetReader.readValue(parser);
+                consumer.accept(asset, index++);
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException exception) {
+            throw new AssetStreamReadException(index, exception.getOriginalMessage());
+        }
+        return index;
+    }
+}
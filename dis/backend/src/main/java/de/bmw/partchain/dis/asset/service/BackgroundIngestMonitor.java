@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.config.BulkProcessingConfig;
+import de.bmw.partchain.dis.resilience.TenantFairExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Exposes the queues of the background work per tenant, waiting times are in milliseconds.
+ */
+@Component
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=Scheduler,name=Tenants")
+public class BackgroundIngestMonitor
+{
+    private final TenantFairExecutor jobExecutor;
+    private final TenantFairExecutor backgroundExecutor;
+
+    public BackgroundIngestMonitor(@Qualifier(BulkProcessingConfig.BULK_JOB_EXECUTOR) TenantFairExecutor jobExecutor,
+                                   @Qualifier(BulkProcessingConfig.BACKGROUND_INGEST_EXECUTOR)
+                                           TenantFairExecutor backgroundExecutor)
+    {
+        this.jobExecutor = jobExecutor;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    @ManagedAttribute
+    public Map<String, Long> getQueuedJobs()
+    {
+        return jobExecutor.getQueueDepths();
+    }
+
+    @ManagedAttribute
+    public Map<String, Long> getRunningJobs()
+    {
+        return jobExecutor.getRunningCounts();
+    }
+
+    @ManagedAttribute
+    public Map<String, Long> getOldestJobWait()
+    {
+        return jobExecutor.getOldestWaitMillis();
+    }
+
+    @ManagedAttribute
+    public Map<String, Long> getQueuedTasks()
+    {
+        return backgroundExecutor.getQueueDepths();
+    }
+
+    @ManagedAttribute
+    public Map<String, Long> getOldestTaskWait()
+    {
+        return backgroundExecutor.getOldestWaitMillis();
+    }
+
+    @ManagedAttribute
+    public Map<String, Long> getAverageTaskWait()
+    {
+        return backgroundExecutor.getAverageWaitMillis();
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.request.TreeDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the manufacturer serial numbers of a bulk request, built in one pass. Assets sharing a serial number form
+ * a group, chained by their positions. A group whose assets are all equal is a set of exact duplicates of its first
+ * asset, a group with differing assets is a conflict in which no asset can be chosen over the others.
+ * <p>
+ * The part tree of the request is kept as a graph over the positions of the first assets of the groups, with the
+ * edges from each child to its parents in flat arrays. Children which are not part of the request are dangling, they
+ * may already be on the ledger. Each asset gets a level one above its highest child, so submitting the assets by
+ * level publishes children before their parents. Assets on a cycle or above one get no level and are cyclic.
+ */
+final class BulkAssetIndex
+{
+    private static final int NONE = -1;
+
+    private final Map<String, Integer> firstBySerialNumber;
+    private final int[] first;
+    private final int[] next;
+    private final boolean[] conflicting;
+    private final Map<Integer, List<Integer>> groups = new HashMap<>();
+    private final boolean[] danglingChildren;
+    private final boolean[] cyclic;
+    private final int[] level;
+    private final int[] order;
+
+    private BulkAssetIndex(List<CatenaXAssetRequestDto> assets)
+    {
+        int size = assets.size();
+        this.firstBySerialNumber = new HashMap<>(size * 4 / 3 + 1);
+        this.first = new int[size];
+        this.next = new int[size];
+        this.conflicting = new boolean[size];
+        Arrays.fill(next, NONE);
+
+        int[] last = new int[size];
+        for (int i = 0; i < size; i++) {
+            first[i] = i;
+            String serialNumber = serialNumber(assets.get(i));
+            if (serialNumber == null) {
+                continue;
+            }
+            Integer head = firstBySerialNumber.putIfAbsent(serialNumber, i);
+            if (head != null) {
+                first[i] = head;
+                next[last[head]] = i;
+                last[head] = i;
+                if (!conflicting[head] && !assets.get(head).equals(assets.get(i))) {
+                    conflicting[head] = true;
+                }
+            } else {
+                last[i] = i;
+            }
+        }
+
+        this.danglingChildren = new boolean[size];
+        this.cyclic = new boolean[size];
+        this.level = new int[size];
+        this.order = new int[size];
+        sortTopologically(assets);
+    }
+
+    /**
+     * Kahn's algorithm from the leaves, followed by a counting sort of the positions by level.
+     */
+    private void sortTopologically(List<CatenaXAssetRequestDto> assets)
+    {
+        int size = assets.size();
+        int edgeCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (first[i] == i) {
+                edgeCount += children(assets.get(i)).size();
+            }
+        }
+        int[] edgeChild = new int[edgeCount];
+        int[] edgeParent = new int[edgeCount];
+        int[] parentCount = new int[size + 1];
+        int[] childCount = new int[size];
+        int edges = 0;
+        for (int parent = 0; parent < size; parent++) {
+            if (first[parent] != parent) {
+                continue;
+            }
+            for (String childSerialNumber : children(assets.get(parent))) {
+                Integer child = childSerialNumber == null ? null : firstBySerialNumber.get(childSerialNumber);
+                if (child == null) {
+                    danglingChildren[parent] = true;
+                    continue;
+                }
+                edgeChild[edges] = child;
+                edgeParent[edges] = parent;
+                parentCount[child + 1]++;
+                childCount[parent]++;
+                edges++;
+            }
+        }
+        int[] parentStart = parentCount;
+        for (int i = 0; i < size; i++) {
+            parentStart[i + 1] += parentStart[i];
+        }
+        int[] parents = new int[edges];
+        int[] fill = Arrays.copyOf(parentStart, size);
+        for (int edge = 0; edge < edges; edge++) {
+            parents[fill[edgeChild[edge]]++] = edgeParent[edge];
+        }
+
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (first[i] == i && childCount[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        int maxLevel = 0;
+        while (head < tail) {
+            int child = queue[head++];
+            for (int edge = parentStart[child]; edge < parentStart[child + 1]; edge++) {
+                int parent = parents[edge];
+                level[parent] = Math.max(level[parent], level[child] + 1);
+                maxLevel = Math.max(maxLevel, level[parent]);
+                if (--childCount[parent] == 0) {
+                    queue[tail++] = parent;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (first[i] == i && childCount[i] > 0) {
+                cyclic[i] = true;
+                level[i] = 0;
+            } else if (first[i] != i) {
+                level[i] = 0;
+            }
+        }
+
+        int[] levelStart = new int[maxLevel + 2];
+        for (int i = 0; i < size; i++) {
+            levelStart[level[i] + 1]++;
+        }
+        for (int l = 0; l <= maxLevel; l++) {
+            levelStart[l + 1] += levelStart[l];
+        }
+        for (int i = 0; i < size; i++) {
+            order[levelStart[level[i]]++] = i;
+        }
+    }
+
+    static BulkAssetIndex of(List<CatenaXAssetRequestDto> assets)
+    {
+        return new BulkAssetIndex(assets);
+    }
+
+    /**
+     * @return whether the asset repeats an earlier one of the request without any change
+     */
+    boolean isDuplicate(int index)
+    {
+        return first[index] != index && !conflicting[first[index]];
+    }
+
+    boolean isConflicting(int index)
+    {
+        return conflicting[first[index]];
+    }
+
+    /**
+     * @return the positions of all assets having the serial number of the asset in ascending order, shared by the
+     * assets of a group so that reporting a conflict stays linear
+     */
+    List<Integer> groupIndexes(int index)
+    {
+        return groups.computeIfAbsent(first[index], head -> {
+            List<Integer> group = new ArrayList<>();
+            for (int i = head; i != NONE; i = next[i]) {
+                group.add(i);
+            }
+            return Collections.unmodifiableList(group);
+        });
+    }
+
+    /**
+     * @return whether the asset is on a cycle of the part tree or has one below it
+     */
+    boolean isCyclic(int index)
+    {
+        return cyclic[first[index]];
+    }
+
+    boolean hasDanglingChildren(int index)
+    {
+        return danglingChildren[first[index]];
+    }
+
+    /**
+     * @return the children of the asset which are not part of the request
+     */
+    List<String> danglingChildren(CatenaXAssetRequestDto asset)
+    {
+        List<String> dangling = new ArrayList<>();
+        for (String child : children(asset)) {
+            if (child == null || !firstBySerialNumber.containsKey(child)) {
+                dangling.add(child);
+            }
+        }
+        return dangling;
+    }
+
+    /**
+     * @return zero for assets without children in the request, otherwise one above the highest child
+     */
+    int level(int index)
+    {
+        return level[index];
+    }
+
+    /**
+     * @return all positions of the request ordered by level, within a level in ascending order
+     */
+    int[] topologicalOrder()
+    {
+        return order;
+    }
+
+    private static List<String> children(CatenaXAssetRequestDto asset)
+    {
+        TreeDto partTree = asset == null ? null : asset.getPartTree();
+        return partTree == null || partTree.getIsParentOf() == null
+                ? Collections.emptyList() : partTree.getIsParentOf();
+    }
+
+    static String serialNumber(CatenaXAssetRequestDto asset)
+    {
+        return asset == null || asset.getUniqueData() == null ? null : asset.getUniqueData().getManufacturerUniqueID();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.resilience.GradientConcurrencyLimit;
+import de.bmw.partchain.dis.resilience.LoadShedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds ingest requests before they take memory and threads the service does not have. The concurrent ingest
+ * requests are limited by a {@link GradientConcurrencyLimit} which follows the latency of single assets on the
+ * ingest path, from validation until the ledger acknowledged them, averaged over short windows. This latency does not
+ * depend on the size of the requests, but rises as soon as Kafka or CDQ slow down. In addition the bodies of the
+ * requests in progress may not exceed a budget of bytes, a single request larger than the budget is only admitted
+ * while no other request is in progress.
+ */
+@Slf4j
+@Service
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=Admission,name=LoadShedding")
+public class IngestLoadSheddingService
+{
+    private final boolean enabled;
+    private final GradientConcurrencyLimit limit;
+    private final long maxInFlightBytes;
+    private final long unknownLengthBytes;
+    private final long sampleWindowNanos;
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final LongAdder shedRequests = new LongAdder();
+    private final LongAdder windowLatencyNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param unknownLengthBytes bytes assumed for requests without content length, like chunked streams
+     */
+    public IngestLoadSheddingService(@Value(value = "${load-shedding.enabled:false}") boolean enabled,
+                                     @Value(value = "${load-shedding.initial-limit:20}") int initialLimit,
+                                     @Value(value = "${load-shedding.min-limit:4}") int minLimit,
+                                     @Value(value = "${load-shedding.max-limit:200}") int maxLimit,
+                                     @Value(value = "${load-shedding.latency-tolerance:1.5}") double tolerance,
+                                     @Value(value = "${load-shedding.smoothing:0.2}") double smoothing,
+                                     @Value(value = "${load-shedding.baseline-samples:600}") int baselineSamples,
+                                     @Value(value = "${load-shedding.sample-window-millis:250}") long sampleWindowMillis,
+                                     @Value(value = "${load-shedding.max-in-flight-bytes:268435456}") long maxInFlightBytes,
+                                     @Value(value = "${load-shedding.unknown-length-bytes:16777216}") long unknownLengthBytes)
+    {
+        this.enabled = enabled;
+        this.limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing,
+                baselineSamples);
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.unknownLengthBytes = unknownLengthBytes;
+        this.sampleWindowNanos = sampleWindowMillis * 1_000_000;
+        log.info("[INIT LOAD] IngestLoadSheddingService initialized.");
+    }
+
+    /**
+     * @param contentLength length of the request body, negative if unknown
+     * @return the bytes charged to the request which have to be handed to {@link #exit(long)}, negative if the
+     * request was not limited at all
+     * @throws LoadShedException if the request is shed
+     */
+    public long enter(long contentLength)
+    {
+        if (!enabled) {
+            return -1;
+        }
+        if (!limit.tryAcquire()) {
+            shedRequests.increment();
+            throw new LoadShedException(String.format(
+                    "%d ingest requests in progress, the current limit", limit.getInFlight()));
+        }
+        long bytes = contentLength < 0 ? unknownLengthBytes : contentLength;
+        long total = inFlightBytes.addAndGet(bytes);
+        if (total > maxInFlightBytes && total != bytes) {
+            inFlightBytes.addAndGet(-bytes);
+            limit.release();
+            shedRequests.increment();
+            throw new LoadShedException(String.format(
+                    "%d bytes of ingest requests in progress", total - bytes));
+        }
+        return bytes;
+    }
+
+    public void exit(long bytes)
+    {
+        if (bytes < 0) {
+            return;
+        }
+        inFlightBytes.addAndGet(-bytes);
+        limit.release();
+    }
+
+    /**
+     * Records how long an asset took from validation until the ledger acknowledged it.
+     */
+    public void recordAssetLatency(long latencyNanos)
+    {
+        if (!enabled) {
+            return;
+        }
+        windowLatencyNanos.add(latencyNanos);
+        windowSamples.increment();
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start >= sampleWindowNanos && windowStart.compareAndSet(start, now)) {
+            long samples = windowSamples.sumThenReset();
+            long latency = windowLatencyNanos.sumThenReset();
+            if (samples > 0) {
+                limit.onSample(latency / samples);
+            }
+        }
+    }
+
+    @ManagedAttribute
+    public int getConcurrencyLimit()
+    {
+        return limit.getLimit();
+    }
+
+    @ManagedAttribute
+    public int getInFlightRequests()
+    {
+        return limit.getInFlight();
+    }
+
+    @ManagedAttribute
+    public long getInFlightBytes()
+    {
+        return inFlightBytes.get();
+    }
+
+    @ManagedAttribute
+    public double getBaselineLatencyMillis()
+    {
+        return limit.getBaselineMillis();
+    }
+
+    @ManagedAttribute
+    public long getShedRequestCount()
+    {
+        return shedRequests.sum();
+    }
+}
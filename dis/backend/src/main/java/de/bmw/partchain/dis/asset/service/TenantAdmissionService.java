@@ -0,0 +1,175 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.repository.TenantQuotaStore;
+import de.bmw.partchain.dis.resilience.RateLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per tenant admission control, so that a single tenant can not take all the capacity shared by the tenants. Each
+ * tenant has a token bucket of assets per second, holding the assets of {@code burstSeconds}, and a limit of
+ * concurrent bulk requests. Requests over budget are rejected with the time after which the tenant has budget again,
+ * streamed assets are paced instead, as the assets read before are already in progress.
+ */
+@Slf4j
+@Service
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=Admission,name=Tenants")
+public class TenantAdmissionService
+{
+    private final TenantQuotaStore quotaStore;
+    private final boolean enabled;
+    private final double assetsPerSecond;
+    private final long burstSeconds;
+    private final int maxConcurrentRequests;
+    private final Map<String, Double> tenantAssetsPerSecond;
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder rejectedAssets = new LongAdder();
+    private final LongAdder pacedMillis = new LongAdder();
+
+    /**
+     * @param tenantAssetsPerSecond comma separated mspId:assetsPerSecond pairs of the tenants not using the default
+     */
+    public TenantAdmissionService(TenantQuotaStore quotaStore,
+                                  @Value(value = "${admission.enabled:false}") boolean enabled,
+                                  @Value(value = "${admission.assets-per-second:1000}") double assetsPerSecond,
+                                  @Value(value = "${admission.burst-seconds:10}") long burstSeconds,
+                                  @Value(value = "${admission.max-concurrent-requests:4}") int maxConcurrentRequests,
+                                  @Value(value = "${admission.tenant-assets-per-second:}") String tenantAssetsPerSecond)
+    {
+        this.quotaStore = quotaStore;
+        this.enabled = enabled;
+        this.assetsPerSecond = assetsPerSecond;
+        this.burstSeconds = burstSeconds;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.tenantAssetsPerSecond = parseTenantAssetsPerSecond(tenantAssetsPerSecond);
+        log.info("[INIT LOAD] TenantAdmissionService initialized.");
+    }
+
+    /**
+     * @return whether a concurrent bulk request of the tenant was admitted, which has to be released on completion
+     */
+    public boolean tryEnterRequest(String mspId)
+    {
+        if (!enabled || mspId == null) {
+            return false;
+        }
+        if (!quotaStore.tryAcquireRequest(mspId, maxConcurrentRequests)) {
+            rejectedRequests.increment();
+            throw new RateLimitExceededException(String.format(
+                    "Tenant %s has %d bulk requests in progress", mspId, maxConcurrentRequests), 1000);
+        }
+        return true;
+    }
+
+    public void exitRequest(String mspId)
+    {
+        quotaStore.releaseRequest(mspId);
+    }
+
+    /**
+     * @throws RateLimitExceededException if the tenant is over its asset budget
+     */
+    public void admitAssets(String mspId, int assets)
+    {
+        if (!enabled || mspId == null || assets == 0) {
+            return;
+        }
+        double rate = assetsPerSecond(mspId);
+        long retryAfterMillis = quotaStore.tryAcquireAssets(mspId, assets, rate, burstAssets(rate));
+        if (retryAfterMillis > 0) {
+            rejectedAssets.add(assets);
+            throw new RateLimitExceededException(String.format(
+                    "Tenant %s is over its budget of %s assets per second", mspId, rate), retryAfterMillis);
+        }
+    }
+
+    /**
+     * Waits until the tenant has budget for the assets.
+     */
+    public void paceAssets(String mspId, int assets)
+    {
+        if (!enabled || mspId == null || assets == 0) {
+            return;
+        }
+        double rate = assetsPerSecond(mspId);
+        long waitMillis;
+        while ((waitMillis = quotaStore.tryAcquireAssets(mspId, assets, rate, burstAssets(rate))) > 0) {
+            pacedMillis.add(waitMillis);
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RateLimitExceededException(String.format(
+                        "Tenant %s is over its budget of %s assets per second", mspId, rate), waitMillis);
+            }
+        }
+    }
+
+    @ManagedAttribute
+    public long getRejectedRequestCount()
+    {
+        return rejectedRequests.sum();
+    }
+
+    @ManagedAttribute
+    public long getRejectedAssetCount()
+    {
+        return rejectedAssets.sum();
+    }
+
+    @ManagedAttribute
+    public long getPacedMillis()
+    {
+        return pacedMillis.sum();
+    }
+
+    private double assetsPerSecond(String mspId)
+    {
+        return tenantAssetsPerSecond.getOrDefault(mspId, assetsPerSecond);
+    }
+
+    private long burstAssets(double rate)
+    {
+        return Math.max(1, (long) (rate * burstSeconds));
+    }
+
+    private static Map<String, Double> parseTenantAssetsPerSecond(String tenantAssetsPerSecond)
+    {
+        Map<String, Double> rates = new HashMap<>();
+        for (String tenantRate : tenantAssetsPerSecond.split(",")) {
+            if (tenantRate.trim().isEmpty()) {
+                continue;
+            }
+            String[] mspIdAndRate = tenantRate.split(":");
+            if (mspIdAndRate.length != 2) {
+                throw new IllegalArgumentException("Invalid assets per second of tenant: " + tenantRate);
+            }
+            rates.put(mspIdAndRate[0].trim(), Double.parseDouble(mspIdAndRate[1].trim()));
+        }
+        return rates;
+    }
+}
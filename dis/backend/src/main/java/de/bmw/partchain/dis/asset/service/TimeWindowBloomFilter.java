@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Bloom filter which forgets its elements after a time window. It keeps two generations, elements are added to the
+ * current one and looked up in both, and every window the older generation is dropped, so an element is remembered
+ * for at least one and at most two windows. Elements are given as two independent 64 bit hashes. Thread safe.
+ */
+final class TimeWindowBloomFilter
+{
+    private final int bits;
+    private final int hashes;
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+    private volatile long currentSince;
+
+    TimeWindowBloomFilter(int bits, int hashes, long windowMillis, LongSupplier clock)
+    {
+        this.bits = Math.max(64, bits);
+        this.hashes = Math.max(1, hashes);
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.current = newGeneration();
+        this.previous = newGeneration();
+        this.currentSince = clock.getAsLong();
+    }
+
+    void add(long hash1, long hash2)
+    {
+        rotateIfExpired();
+        AtomicLongArray generation = current;
+        for (int i = 0; i < hashes; i++) {
+            int bit = bit(hash1, hash2, i);
+            long mask = 1L << bit;
+            generation.accumulateAndGet(bit >>> 6, mask, (word, bitMask) -> word | bitMask);
+        }
+    }
+
+    boolean mightContain(long hash1, long hash2)
+    {
+        rotateIfExpired();
+        return contains(current, hash1, hash2) || contains(previous, hash1, hash2);
+    }
+
+    private boolean contains(AtomicLongArray generation, long hash1, long hash2)
+    {
+        for (int i = 0; i < hashes; i++) {
+            int bit = bit(hash1, hash2, i);
+            if ((generation.get(bit >>> 6) & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int bit(long hash1, long hash2, int i)
+    {
+        return (int) Math.floorMod(hash1 + i * hash2, (long) bits);
+    }
+
+    private void rotateIfExpired()
+    {
+        if (clock.getAsLong() - currentSince < windowMillis) {
+            return;
+        }
+        synchronized (this) {
+            long now = clock.getAsLong();
+            if (now - currentSince < windowMillis) {
+                return;
+            }
+            // After a gap of more than a window the current generation is outdated as well
+            previous = now - currentSince < 2 * windowMillis ? current : newGeneration();
+            current = newGeneration();
+            currentSince = now;
+        }
+    }
+
+    private AtomicLongArray newGeneration()
+    {
+        return new AtomicLongArray((bits + 63) >>> 6);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service.cdq.bpn;
+
+import de.bmw.partchain.dis.resilience.Bulkhead;
+import de.bmw.partchain.dis.resilience.CallNotPermittedException;
+import de.bmw.partchain.dis.resilience.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Protects the ingest threads from a slow or failing BPN API: calls are limited by a bulkhead and rejected right
+ * away while the circuit breaker is open, so assets are not enriched instead of waiting for the API.
+ */
+@Slf4j
+@Component
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=Resilience,name=BpnApiGuard")
+public class BpnApiGuard {
+
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+
+  public BpnApiGuard(@Value("${cdq.bpn.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                     @Value("${cdq.bpn.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+                     @Value("${cdq.bpn.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                     @Value("${cdq.bpn.circuit-breaker.open-seconds:30}") long openSeconds,
+                     @Value("${cdq.bpn.circuit-breaker.half-open-calls:3}") int halfOpenCalls,
+                     @Value("${cdq.bpn.bulkhead.max-concurrent-calls:10}") int maxConcurrentCalls,
+                     @Value("${cdq.bpn.bulkhead.max-wait-millis:100}") long maxWaitMillis) {
+    this.circuitBreaker = new CircuitBreaker("cdq-bpn", failureRateThreshold, slidingWindowSize, minimumCalls,
+      TimeUnit.SECONDS.toMillis(openSeconds), halfOpenCalls);
+    this.bulkhead = new Bulkhead("cdq-bpn", maxConcurrentCalls, maxWaitMillis);
+    log.info("[INIT LOAD] BpnApiGuard initialized.");
+  }
+
+  /**
+   * @throws CallNotPermittedException if the call is rejected without being executed
+   */
+  public <T> T execute(Supplier<T> call) {
+    circuitBreaker.acquirePermission();
+    try {
+      bulkhead.acquirePermission();
+    } catch (CallNotPermittedException e) {
+      circuitBreaker.releasePermission();
+      throw e;
+    }
+
+    try {
+      T result = call.get();
+      circuitBreaker.onSuccess();
+      return result;
+    } catch (RuntimeException e) {
+      circuitBreaker.onError();
+      throw e;
+    } finally {
+      bulkhead.releasePermission();
+    }
+  }
+
+  @ManagedAttribute
+  public String getCircuitBreakerState() {
+    return circuitBreaker.getState().name();
+  }
+
+  @ManagedAttribute
+  public float getFailureRate() {
+    return circuitBreaker.getFailureRate();
+  }
+
+  @ManagedAttribute
+  public long getStateTransitionCount() {
+    return circuitBreaker.getTransitionCount();
+  }
+
+  @ManagedAttribute
+  public long getCircuitBreakerRejectionCount() {
+    return circuitBreaker.getRejectionCount();
+  }
+
+  @ManagedAttribute
+  public long getBulkheadRejectionCount() {
+    return bulkhead.getRejectionCount();
+  }
+
+  @ManagedAttribute
+  public int getActiveCalls() {
+    return bulkhead.getActiveCalls();
+  }
+}
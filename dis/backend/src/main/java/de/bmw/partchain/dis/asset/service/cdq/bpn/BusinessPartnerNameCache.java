@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service.cdq.bpn;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-heap cache of business partner names in front of the shared REDIS cache. Entries are evicted in least
+ * recently used order once the maximum size is reached and expire after the configured time to live, but never later
+ * than the entry they were read from expires on REDIS. Business partners that could not be resolved are kept as
+ * negative entries without a name.
+ */
+@Slf4j
+@Component
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=Cache,name=BusinessPartnerNameCache")
+public class BusinessPartnerNameCache {
+
+  private final int maxSize;
+  private final long ttlMillis;
+  private final Map<String, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public BusinessPartnerNameCache(@Value("${cdq.bpn.cache.max-size:10000}") int maxSize,
+                                  @Value("${cdq.bpn.cache.ttl-seconds:600}") long ttlSeconds) {
+    this.maxSize = maxSize;
+    this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+    this.entries = new LruMap(maxSize, evictions);
+    log.info("[INIT LOAD] BusinessPartnerNameCache initialized with max size {} and ttl {}s.", maxSize, ttlSeconds);
+  }
+
+  /**
+   * @return the cached name, an empty optional for a negative entry or {@code null} if the OneID is not cached
+   */
+  public Optional<String> getIfPresent(String oneId) {
+    long now = System.currentTimeMillis();
+    synchronized (entries) {
+      Entry entry = entries.get(oneId);
+      if (entry != null && entry.expiresAt <= now) {
+        entries.remove(oneId);
+        evictions.increment();
+        entry = null;
+      }
+      if (entry == null) {
+        misses.increment();
+        return null;
+      }
+      hits.increment();
+      return Optional.ofNullable(entry.name);
+    }
+  }
+
+  /**
+   * @param name               the business partner name, {@code null} for a negative entry
+   * @param remainingTtlMillis time until the entry expires in the shared cache, a negative value if unknown
+   */
+  public void put(String oneId, String name, long remainingTtlMillis) {
+    long ttl = remainingTtlMillis < 0 ? ttlMillis : Math.min(ttlMillis, remainingTtlMillis);
+    if (ttl <= 0) {
+      return;
+    }
+    synchronized (entries) {
+      entries.put(oneId, new Entry(name, System.currentTimeMillis() + ttl));
+    }
+  }
+
+  @ManagedAttribute
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  @ManagedAttribute
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @ManagedAttribute
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @ManagedAttribute
+  public double getHitRate() {
+    long hitCount = hits.sum();
+    long requestCount = hitCount + misses.sum();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  @ManagedAttribute
+  public int getSize() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  @ManagedOperation
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  private static final class LruMap extends LinkedHashMap<String, Entry> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+    private final LongAdder evictions;
+
+    private LruMap(int maxSize, LongAdder evictions) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+      this.evictions = evictions;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      boolean evict = size() > maxSize;
+      if (evict) {
+        evictions.increment();
+      }
+      return evict;
+    }
+  }
+
+  private static final class Entry {
+
+    private final String name;
+    private final long expiresAt;
+
+    private Entry(String name, long expiresAt) {
+      this.name = name;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service.cdq.bpn;
+
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.request.StaticDataDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Business partner names of one ingest request. The distinct OneIDs of a batch of assets are resolved together and
+ * then shared by all assets of the request that refer to them.
+ */
+@Slf4j
+public class BusinessPartnerNames {
+
+  private final LookupBusinessPartnersService lookupBusinessPartnersService;
+  private final boolean prefetch;
+  private final Map<String, Optional<String>> names = new ConcurrentHashMap<>();
+
+  public BusinessPartnerNames(LookupBusinessPartnersService lookupBusinessPartnersService) {
+    this(lookupBusinessPartnersService, true);
+  }
+
+  /**
+   * @param prefetch false when the names are resolved after ingest, which turns {@link #resolve} into a no-op
+   */
+  public BusinessPartnerNames(LookupBusinessPartnersService lookupBusinessPartnersService, boolean prefetch) {
+    this.lookupBusinessPartnersService = lookupBusinessPartnersService;
+    this.prefetch = prefetch;
+  }
+
+  public void resolve(Collection<CatenaXAssetRequestDto> assets) {
+    if (!prefetch) {
+      return;
+    }
+    Set<BusinessPartnerLookup> lookups = new LinkedHashSet<>();
+    for (CatenaXAssetRequestDto asset : assets) {
+      if (asset.getStaticData() == null || asset.getIndividualData() == null) {
+        continue;
+      }
+      String countryCode = asset.getIndividualData().getProductionCountryCode();
+      for (String oneId : oneIds(asset.getStaticData())) {
+        if (oneId != null && !oneId.isEmpty() && !names.containsKey(oneId)) {
+          lookups.add(new BusinessPartnerLookup(oneId, countryCode));
+        }
+      }
+    }
+    if (lookups.isEmpty()) {
+      return;
+    }
+
+    try {
+      Map<String, String> resolvedNames = lookupBusinessPartnersService.getBusinessPartnerNames(lookups);
+      lookups.forEach(lookup -> names.put(lookup.getOneId(), Optional.ofNullable(resolvedNames.get(lookup.getOneId()))));
+    } catch (Exception e) {
+      log.warn("Unable to fetch BPN data");
+      log.debug(e.getMessage());
+      lookups.forEach(lookup -> names.putIfAbsent(lookup.getOneId(), Optional.empty()));
+    }
+  }
+
+  /**
+   * @return the name resolved for the request, OneIDs which were not part of a resolved batch are looked up directly
+   */
+  public String getName(String oneId, String countryCode) {
+    Optional<String> name = names.get(oneId);
+    return name != null ? name.orElse(null) : lookupBusinessPartnersService.getBusinessPartnerName(oneId, countryCode);
+  }
+
+  private static List<String> oneIds(StaticDataDto staticData) {
+    return Arrays.asList(staticData.getManufactureContractOneID(), staticData.getManufacturerOneID(),
+      staticData.getCustomerContractOneID(), staticData.getCustomerOneID());
+  }
+}
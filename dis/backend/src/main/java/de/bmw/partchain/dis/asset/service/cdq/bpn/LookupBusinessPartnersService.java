@@ -17,7 +17,17 @@
 
 package de.bmw.partchain.dis.asset.service.cdq.bpn;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface LookupBusinessPartnersService {
 
   String getBusinessPartnerName(String manufacturerOneId, String countryCode);
+
+  /**
+   * Resolves the names of all given business partners at once, every OneID is looked up only once.
+   *
+   * @return the names by OneID, business partners that could not be resolved are missing
+   */
+  Map<String, String> getBusinessPartnerNames(Collection<BusinessPartnerLookup> lookups);
 }
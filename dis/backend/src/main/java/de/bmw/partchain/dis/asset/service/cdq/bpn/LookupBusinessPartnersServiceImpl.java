@@ -21,25 +21,39 @@ import de.bmw.partchain.dis.asset.model.dao.BpnDao;
 import de.bmw.partchain.dis.asset.model.request.cdq.bpn.*;
 import de.bmw.partchain.dis.asset.model.response.cdq.bpn.LookupBusinessPartnersResponse;
 import de.bmw.partchain.dis.asset.repository.BpnRepository;
+import de.bmw.partchain.dis.resilience.CallNotPermittedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.http.*;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Collections;
-import java.util.Optional;
-import java.util.concurrent.atomic.AtomicReference;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=Service,name=LookupBusinessPartnersService")
 public class LookupBusinessPartnersServiceImpl implements LookupBusinessPartnersService {
 
+  private static final String NAME_FIELD = "name";
+  private static final String UNRESOLVABLE_FIELD = "unresolvable";
+  private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+    "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
   @Value("${cdq.bpn.url:localhost:8081}")
   private String bpnUrl;
 
@@ -49,31 +63,196 @@ public class LookupBusinessPartnersServiceImpl implements LookupBusinessPartners
   @Value("${cdq.bpn.technicalKey}")
   private String technicalKey;
 
+  @Value("${cdq.bpn.negative-ttl-seconds:900}")
+  private long negativeTtlSeconds;
+
+  @Value("${cdq.bpn.error-ttl-seconds:60}")
+  private long errorTtlSeconds;
+
+  @Value("${cdq.bpn.distributed-lock.enabled:false}")
+  private boolean distributedLockEnabled;
+
+  @Value("${cdq.bpn.distributed-lock.ttl-millis:5000}")
+  private long lockTtlMillis;
+
+  @Value("${cdq.bpn.distributed-lock.poll-millis:50}")
+  private long lockPollMillis;
+
 
   private RestTemplate restTemplate;
 
   private BpnRepository bpnRepository;
 
+  private StringRedisTemplate redisTemplate;
+
+  private BusinessPartnerNameCache localCache;
+
+  private BpnApiGuard bpnApiGuard;
+
+  private SingleFlight<Map<String, String>> singleFlight;
+
+  private final String lockToken = UUID.randomUUID().toString();
+
   @Autowired
-  public LookupBusinessPartnersServiceImpl(RestTemplate restTemplate, BpnRepository bpnRepository) {
+  public LookupBusinessPartnersServiceImpl(RestTemplate restTemplate, BpnRepository bpnRepository,
+                                           StringRedisTemplate redisTemplate, BusinessPartnerNameCache localCache,
+                                           BpnApiGuard bpnApiGuard,
+                                           @Value("${cdq.bpn.single-flight.wait-millis:10000}") long singleFlightWaitMillis) {
     this.restTemplate = restTemplate;
     this.bpnRepository = bpnRepository;
+    this.redisTemplate = redisTemplate;
+    this.localCache = localCache;
+    this.bpnApiGuard = bpnApiGuard;
+    this.singleFlight = new SingleFlight<>(singleFlightWaitMillis);
   }
 
 
   @Override
   public String getBusinessPartnerName(String manufacturerOneId, String countryCode) {
-    log.debug("Searching for entry on REDIS");
-    String redisResponse = getBusinessPartnerNameFromRedis(manufacturerOneId);
+    String businessPartnerName = getBusinessPartnerNames(Collections.singleton(
+      new BusinessPartnerLookup(manufacturerOneId, countryCode))).get(manufacturerOneId);
+
+    log.debug("BPN retrieved: {}", businessPartnerName);
+    return businessPartnerName;
+  }
+
+  @Override
+  public Map<String, String> getBusinessPartnerNames(Collection<BusinessPartnerLookup> lookups) {
+    Map<String, String> countryCodes = new LinkedHashMap<>();
+    lookups.forEach(lookup -> countryCodes.putIfAbsent(lookup.getOneId(), lookup.getCountryCode()));
+
+    Map<String, String> businessPartnerNames = new HashMap<>();
+    Set<String> misses = new HashSet<>();
+    countryCodes.keySet().forEach(oneId -> {
+      Optional<String> name = localCache.getIfPresent(oneId);
+      if (name == null) {
+        misses.add(oneId);
+      } else {
+        name.ifPresent(value -> businessPartnerNames.put(oneId, value));
+      }
+    });
+
+    log.debug("Searching for {} entries on REDIS", misses.size());
+    misses.removeAll(getBusinessPartnerNamesFromRedis(misses, businessPartnerNames));
+    log.debug("Resolving {} business partners, {} not found on REDIS", countryCodes.size(), misses.size());
+
+    for (Map.Entry<String, String> lookup : countryCodes.entrySet()) {
+      String oneId = lookup.getKey();
+      // A single lookup response may already have resolved other missing OneIDs as well
+      if (!misses.contains(oneId) || businessPartnerNames.containsKey(oneId)) {
+        continue;
+      }
+      businessPartnerNames.putAll(singleFlight.execute(oneId,
+        () -> fetchBusinessPartner(oneId, lookup.getValue(), misses), Collections.emptyMap()));
+      misses.remove(oneId);
+    }
+    return businessPartnerNames;
+  }
+
+  @ManagedAttribute
+  public long getCoalescedLookupCount() {
+    return singleFlight.getCoalescedCount();
+  }
+
+  @ManagedAttribute
+  public int getInFlightLookupCount() {
+    return singleFlight.getInFlightCount();
+  }
+
+  /**
+   * Resolves a OneID missing in all caches from the BPN API, the result is cached positively or negatively. With the
+   * distributed lock enabled only one DIS node at a time queries a OneID, the others wait for its result on REDIS.
+   *
+   * @return the names of the OneID and of the other wanted OneIDs contained in the lookup response
+   */
+  private Map<String, String> fetchBusinessPartner(String oneId, String countryCode, Set<String> wantedOneIds) {
+    // A concurrent lookup may have finished between the cache miss and taking over the call
+    Optional<String> cachedName = localCache.getIfPresent(oneId);
+    if (cachedName != null) {
+      return cachedName.map(name -> Collections.singletonMap(oneId, name)).orElse(Collections.emptyMap());
+    }
 
-    if (redisResponse != null && !redisResponse.isEmpty()) {
-      return redisResponse;
+    boolean locked = false;
+    if (distributedLockEnabled) {
+      locked = acquireLock(oneId);
+      if (!locked) {
+        Map<String, String> remoteNames = awaitRemoteLookup(oneId);
+        if (remoteNames != null) {
+          return remoteNames;
+        }
+      }
+    }
+
+    Map<String, String> businessPartnerNames = new HashMap<>();
+    try {
+      log.debug("Unable to find {} on REDIS. Will fetch BPN API", oneId);
+      lookupBusinessPartner(oneId, countryCode, wantedOneIds, businessPartnerNames);
+      if (!businessPartnerNames.containsKey(oneId)) {
+        cacheUnresolvableBusinessPartner(oneId, negativeTtlSeconds);
+      }
+    } catch (CallNotPermittedException e) {
+      log.debug("Skipping BPN lookup for {}: {}", oneId, e.getMessage());
+    } catch (Exception e) {
+      log.warn("Unable to fetch BPN data for {}", oneId);
+      log.debug(e.getMessage());
+      cacheUnresolvableBusinessPartner(oneId, errorTtlSeconds);
+    } finally {
+      if (locked) {
+        releaseLock(oneId);
+      }
+    }
+    return businessPartnerNames;
+  }
+
+  private boolean acquireLock(String oneId) {
+    return Boolean.TRUE.equals(redisTemplate.opsForValue()
+      .setIfAbsent(lockKey(oneId), lockToken, Duration.ofMillis(lockTtlMillis)));
+  }
+
+  private void releaseLock(String oneId) {
+    redisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(lockKey(oneId)), lockToken);
+  }
+
+  /**
+   * Polls REDIS for the entry another node is resolving.
+   *
+   * @return the names found on REDIS or {@code null} if the other node gave up or did not finish in time
+   */
+  private Map<String, String> awaitRemoteLookup(String oneId) {
+    long deadline = System.currentTimeMillis() + lockTtlMillis;
+    while (System.currentTimeMillis() < deadline) {
+      try {
+        Thread.sleep(lockPollMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+
+      Map<String, String> businessPartnerNames = new HashMap<>();
+      if (!getBusinessPartnerNamesFromRedis(Collections.singleton(oneId), businessPartnerNames).isEmpty()) {
+        return businessPartnerNames;
+      }
+      if (!Boolean.TRUE.equals(redisTemplate.hasKey(lockKey(oneId)))) {
+        return null;
+      }
     }
-    log.debug("Unable to find it on REDIS. Will fetch BPN API");
+    return null;
+  }
+
+  private static String lockKey(String oneId) {
+    return BpnDao.KEY_SPACE + "Lock:" + oneId;
+  }
+
+  /**
+   * Queries the BPN API for one OneID and collects the names of every returned business partner whose identifier is
+   * among the wanted OneIDs.
+   */
+  private void lookupBusinessPartner(String oneId, String countryCode, Set<String> wantedOneIds,
+                                     Map<String, String> businessPartnerNames) {
     LookupBusinessPartnersRequest lookupBusinessPartnersRequest = new LookupBusinessPartnersRequest();
     lookupBusinessPartnersRequest.setBusinessPartner(BusinessPartner.builder().
       identifiers(Collections.singletonList(Identifier.builder().
-        value(manufacturerOneId).
+        value(oneId).
         type(Type.builder().
           technicalKey(technicalKey).build()).
         build())).
@@ -87,26 +266,22 @@ public class LookupBusinessPartnersServiceImpl implements LookupBusinessPartners
     headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
 
     HttpEntity<LookupBusinessPartnersRequest> entity = new HttpEntity<>(lookupBusinessPartnersRequest, headers);
-    ResponseEntity<LookupBusinessPartnersResponse> response = restTemplate.exchange(bpnUrl, HttpMethod.POST, entity, LookupBusinessPartnersResponse.class);
+    ResponseEntity<LookupBusinessPartnersResponse> response = bpnApiGuard.execute(() ->
+      restTemplate.exchange(bpnUrl, HttpMethod.POST, entity, LookupBusinessPartnersResponse.class));
     LookupBusinessPartnersResponse lookupBusinessPartnersResponse = response.getBody();
 
-    AtomicReference<String> businessPartnerName = new AtomicReference<>();
-
     assert lookupBusinessPartnersResponse != null;
     lookupBusinessPartnersResponse.getValues().forEach(value -> {
       String bpn = value.getBusinessPartner().getNames().get(0).getValue();
 
       value.getBusinessPartner().getIdentifiers().forEach(identifier -> {
-        if (identifier.getValue().equals(manufacturerOneId)) {
-          businessPartnerName.set(bpn);
-          cacheBusinessPartner(manufacturerOneId, bpn);
+        if (wantedOneIds.contains(identifier.getValue())) {
+          businessPartnerNames.put(identifier.getValue(), bpn);
+          cacheBusinessPartner(identifier.getValue(), bpn);
         }
       });
 
     });
-
-    log.debug("BPN retrieved: {}", businessPartnerName.get());
-    return businessPartnerName.get();
   }
 
   private void cacheBusinessPartner(String id, String name) {
@@ -114,12 +289,59 @@ public class LookupBusinessPartnersServiceImpl implements LookupBusinessPartners
       id(id).
       name(name).build();
     bpnRepository.save(bpnDao);
+    localCache.put(id, name, TimeUnit.SECONDS.toMillis(BpnDao.TIME_TO_LIVE));
   }
 
-  private String getBusinessPartnerNameFromRedis(String manufacturerOneId) {
-    Optional<BpnDao> bpnDao = bpnRepository.findById(manufacturerOneId);
+  private void cacheUnresolvableBusinessPartner(String id, long ttlSeconds) {
+    BpnDao bpnDao = BpnDao.builder().
+      id(id).
+      unresolvable(true).
+      timeToLive(ttlSeconds).build();
+    bpnRepository.save(bpnDao);
+    localCache.put(id, null, TimeUnit.SECONDS.toMillis(ttlSeconds));
+  }
 
-    return bpnDao.map(BpnDao::getName).orElse(null);
+  /**
+   * Reads the names of all given OneIDs from the BusinessPartner hashes written by the {@link BpnRepository} in a
+   * single pipelined round-trip. Found entries are kept in the local cache until they expire on REDIS at the latest.
+   *
+   * @return the OneIDs found on REDIS, including negative entries which have no name
+   */
+  private Set<String> getBusinessPartnerNamesFromRedis(Collection<String> oneIds, Map<String, String> businessPartnerNames) {
+    Set<String> found = new HashSet<>();
+    if (oneIds.isEmpty()) {
+      return found;
+    }
+    List<String> ids = new ArrayList<>(oneIds);
+    byte[] nameField = NAME_FIELD.getBytes(StandardCharsets.UTF_8);
+    byte[] unresolvableField = UNRESOLVABLE_FIELD.getBytes(StandardCharsets.UTF_8);
+    List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+      ids.forEach(id -> {
+        byte[] key = (BpnDao.KEY_SPACE + ":" + id).getBytes(StandardCharsets.UTF_8);
+        connection.hMGet(key, nameField, unresolvableField);
+        connection.pTtl(key);
+      });
+      return null;
+    });
+
+    for (int i = 0; i < ids.size(); i++) {
+      List<?> fields = (List<?>) results.get(2 * i);
+      Object ttl = results.get(2 * i + 1);
+      long remainingTtl = ttl instanceof Long ? (Long) ttl : -1;
+      Object name = fields.get(0);
+      Object unresolvable = fields.get(1);
+
+      if (name != null && !name.toString().isEmpty()) {
+        found.add(ids.get(i));
+        businessPartnerNames.put(ids.get(i), name.toString());
+        localCache.put(ids.get(i), name.toString(), remainingTtl);
+      } else if (unresolvable != null && ("1".equals(unresolvable.toString()) ||
+        Boolean.parseBoolean(unresolvable.toString()))) {
+        found.add(ids.get(i));
+        localCache.put(ids.get(i), null, remainingTtl);
+      }
+    }
+    return found;
   }
 
 }
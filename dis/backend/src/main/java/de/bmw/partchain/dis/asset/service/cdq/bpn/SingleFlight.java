@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.service.cdq.bpn;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller executes the call, callers arriving while it is
+ * still running wait for and share its result instead of executing the call again.
+ */
+class SingleFlight<V> {
+
+  private final ConcurrentMap<String, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+  private final LongAdder coalesced = new LongAdder();
+  private final long waitMillis;
+
+  SingleFlight(long waitMillis) {
+    this.waitMillis = waitMillis;
+  }
+
+  /**
+   * @return the result of the call, or {@code fallback} if the call of another caller failed or did not finish in
+   * time
+   */
+  V execute(String key, Supplier<V> call, V fallback) {
+    CompletableFuture<V> ownCall = new CompletableFuture<>();
+    CompletableFuture<V> runningCall = calls.putIfAbsent(key, ownCall);
+
+    if (runningCall != null) {
+      coalesced.increment();
+      try {
+        return runningCall.get(waitMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return fallback;
+      } catch (ExecutionException | TimeoutException e) {
+        return fallback;
+      }
+    }
+
+    try {
+      V result = call.get();
+      ownCall.complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      ownCall.completeExceptionally(e);
+      throw e;
+    } finally {
+      calls.remove(key, ownCall);
+    }
+  }
+
+  long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  int getInFlightCount() {
+    return calls.size();
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.asset.validator;
+
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.request.IndividualDataDto;
+import de.bmw.partchain.dis.asset.model.request.StaticDataDto;
+import de.bmw.partchain.dis.asset.model.request.UniqueDataDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.validation.Constraint;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validates {@link CatenaXAssetRequestDto} with the constraints declared on the request DTOs, checked in plain code
+ * instead of through the bean validation engine. The violation messages are read from the constraint annotations once
+ * at startup, so they stay the same as with bean validation. Valid assets are checked without any allocation. The
+ * startup fails if a constraint of the request DTOs is not checked here, e.g. one added to a DTO later on.
+ */
+@Slf4j
+@Component
+public class CatenaXAssetRequestValidator
+{
+    private final CountryCodeValidator countryCodeValidator = new CountryCodeValidator();
+    private final DateGmtValidator dateGmtValidator = new DateGmtValidator();
+    // Constraints read by message(), filled before the fields holding the messages
+    private final Set<String> checkedConstraints = new HashSet<>();
+
+    private final String manufacturerOneIdNull = message(StaticDataDto.class, "manufacturerOneID", NotNull.class);
+    private final String partNumberCustomerNull = message(StaticDataDto.class, "partNumberCustomer", NotNull.class);
+    private final String partNameManufacturerNull = message(StaticDataDto.class, "partNameManufacturer", NotNull.class);
+    private final String partNumberManufacturerNull = message(StaticDataDto.class, "partNumberManufacturer", NotNull.class);
+    private final String manufacturerUniqueIdNull = message(UniqueDataDto.class, "manufacturerUniqueID", NotNull.class);
+    private final String uniqueIdNull = message(UniqueDataDto.class, "uniqueID", NotNull.class);
+    private final String productionCountryCodeNull = message(IndividualDataDto.class, "productionCountryCode", NotNull.class);
+    private final String productionCountryCodeInvalid = message(IndividualDataDto.class, "productionCountryCode",
+            IsISO3166_1Alpha2CountryCode.class);
+    private final String productionDateGmtNull = message(IndividualDataDto.class, "productionDateGMT", NotNull.class);
+    private final String productionDateGmtInvalid = message(IndividualDataDto.class, "productionDateGMT", IsDateGMT.class);
+
+    public CatenaXAssetRequestValidator()
+    {
+        List<String> unchecked = uncheckedConstraints(CatenaXAssetRequestDto.class, checkedConstraints);
+        if (!unchecked.isEmpty()) {
+            throw new IllegalStateException("Constraints of the asset request not checked by the validator: "
+                    + unchecked);
+        }
+        log.info("[INIT LOAD] CatenaXAssetRequestValidator initialized.");
+    }
+
+    /**
+     * @return the messages of all violated constraints, an empty list if the asset is valid
+     */
+    public List<String> validate(CatenaXAssetRequestDto asset)
+    {
+        List<String> violations = null;
+
+        StaticDataDto staticData = asset.getStaticData();
+        if (staticData != null) {
+            violations = requireNonNull(violations, staticData.getManufacturerOneID(), manufacturerOneIdNull);
+            violations = requireNonNull(violations, staticData.getPartNumberCustomer(), partNumberCustomerNull);
+            violations = requireNonNull(violations, staticData.getPartNameManufacturer(), partNameManufacturerNull);
+            violations = requireNonNull(violations, staticData.getPartNumberManufacturer(), partNumberManufacturerNull);
+        }
+
+        UniqueDataDto uniqueData = asset.getUniqueData();
+        if (uniqueData != null) {
+            violations = requireNonNull(violations, uniqueData.getManufacturerUniqueID(), manufacturerUniqueIdNull);
+            violations = requireNonNull(violations, uniqueData.getUniqueID(), uniqueIdNull);
+        }
+
+        IndividualDataDto individualData = asset.getIndividualData();
+        if (individualData != null) {
+            String countryCode = individualData.getProductionCountryCode();
+            violations = requireNonNull(violations, countryCode, productionCountryCodeNull);
+            // Like bean validation the format constraints are checked for null values as well
+            if (!countryCodeValidator.isValid(countryCode, null)) {
+                violations = add(violations, productionCountryCodeInvalid);
+            }
+
+            String productionDate = individualData.getProductionDateGMT();
+            violations = requireNonNull(violations, productionDate, productionDateGmtNull);
+            if (!dateGmtValidator.isValid(productionDate, null)) {
+                violations = add(violations, productionDateGmtInvalid);
+            }
+        }
+
+        return violations == null ? Collections.emptyList() : violations;
+    }
+
+    private static List<String> requireNonNull(List<String> violations, Object value, String message)
+    {
+        return value == null ? add(violations, message) : violations;
+    }
+
+    private static List<String> add(List<String> violations, String message)
+    {
+        List<String> result = violations == null ? new ArrayList<>(2) : violations;
+        result.add(message);
+        return result;
+    }
+
+    /**
+     * Scans the type and the sections it cascades validation to with {@link Valid} for constraints not in the given
+     * set, which holds them as built by {@link #constraintKey}.
+     *
+     * @return the constraints not in the set
+     */
+    static List<String> uncheckedConstraints(Class<?> type, Set<String> checkedConstraints)
+    {
+        List<String> unchecked = new ArrayList<>();
+        collectUncheckedConstraints(type, null, type, checkedConstraints, unchecked, new HashSet<>());
+        return unchecked;
+    }
+
+    static String constraintKey(Class<?> type, String fieldName, Class<? extends Annotation> constraint)
+    {
+        return String.format("%s.%s@%s", type.getSimpleName(), fieldName, constraint.getSimpleName());
+    }
+
+    private static void collectUncheckedConstraints(Class<?> type, String fieldName, AnnotatedElement element,
+                                                    Set<String> checkedConstraints, List<String> unchecked,
+                                                    Set<Class<?>> scanned)
+    {
+        for (Annotation annotation : element.getDeclaredAnnotations()) {
+            for (Annotation constraint : constraints(annotation)) {
+                String key = constraintKey(type, fieldName, constraint.annotationType());
+                if (!checkedConstraints.contains(key)) {
+                    unchecked.add(key);
+                }
+            }
+        }
+        if (element instanceof Class && scanned.add(type)) {
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    collectUncheckedConstraints(type, field.getName(), field, checkedConstraints, unchecked, scanned);
+                    if (field.isAnnotationPresent(Valid.class)) {
+                        collectUncheckedConstraints(field.getType(), null, field.getType(), checkedConstraints,
+                                unchecked, scanned);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the annotation if it is a constraint, or the constraints it holds if it is a list of repeated ones
+     */
+    private static List<Annotation> constraints(Annotation annotation)
+    {
+        if (annotation.annotationType().isAnnotationPresent(Constraint.class)) {
+            return Collections.singletonList(annotation);
+        }
+        try {
+            Method value = annotation.annotationType().getMethod("value");
+            if (value.getReturnType().isArray() && value.getReturnType().getComponentType().isAnnotation()) {
+                List<Annotation> constraints = new ArrayList<>();
+                for (Annotation repeated : (Annotation[]) value.invoke(annotation)) {
+                    constraints.addAll(constraints(repeated));
+                }
+                return constraints;
+            }
+        } catch (NoSuchMethodException e) {
+            return Collections.emptyList();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to read the constraints of " + annotation, e);
+        }
+        return Collections.emptyList();
+    }
+
+    private String message(Class<?> type, String fieldName, Class<? extends Annotation> constraint)
+    {
+        checkedConstraints.add(constraintKey(type, fieldName, constraint));
+        try {
+            Field field = type.getDeclaredField(fieldName);
+            Annotation annotation = field.getAnnotation(constraint);
+            if (annotation == null) {
+                throw new IllegalStateException(String.format("%s.%s is not annotated with @%s",
+                        type.getSimpleName(), fieldName, constraint.getSimpleName()));
+            }
+            return (String) constraint.getMethod("message").invoke(annotation);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(String.format("Unable to read the message of %s.%s", type.getSimpleName(),
+                    fieldName), e);
+        }
+    }
+}
@@ -21,18 +21,50 @@ import lombok.extern.slf4j.Slf4j;
 
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
-import java.util.Arrays;
 import java.util.Locale;
-import java.util.stream.Collectors;
 
 @Slf4j
 public class CountryCodeValidator implements ConstraintValidator<IsISO3166_1Alpha2CountryCode, String>
 {
+    private static final int LETTERS = 26;
+
+    /**
+     * The ISO 3166-1 alpha-2 codes known to the JVM, indexed by their two upper case letters.
+     */
+    private static final boolean[] COUNTRY_CODES = new boolean[LETTERS * LETTERS];
+
+    static
+    {
+        for (String countryCode : Locale.getISOCountries())
+        {
+            COUNTRY_CODES[index(countryCode.charAt(0), countryCode.charAt(1))] = true;
+        }
+    }
+
     @Override
     public boolean isValid(String countryCode, ConstraintValidatorContext constraintValidatorContext)
     {
-        return Arrays.stream(Locale.getISOCountries())
-                .collect(Collectors.toSet())
-                .contains(countryCode);
+        return isCountryCode(countryCode);
+    }
+
+    public static boolean isCountryCode(String countryCode)
+    {
+        if (countryCode == null || countryCode.length() != 2)
+        {
+            return false;
+        }
+        char first = countryCode.charAt(0);
+        char second = countryCode.charAt(1);
+        return isUpperCaseLetter(first) && isUpperCaseLetter(second) && COUNTRY_CODES[index(first, second)];
+    }
+
+    private static boolean isUpperCaseLetter(char c)
+    {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static int index(char first, char second)
+    {
+        return (first - 'A') * LETTERS + (second - 'A');
     }
 }
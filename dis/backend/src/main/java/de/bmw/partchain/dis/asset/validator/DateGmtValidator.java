@@ -21,26 +21,221 @@ import lombok.extern.slf4j.Slf4j;
 
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 
+/**
+ * Accepts ISO 8601 date times with offset as {@code DateTimeFormatter.ISO_OFFSET_DATE_TIME} parses them on Java 8,
+ * but scans them directly instead of going through the formatter, so that invalid dates neither allocate nor throw.
+ * The grammar is {@code yyyy-MM-dd'T'HH:mm[:ss[.fraction]]offset} where
+ * <ul>
+ * <li>the year has four digits, or up to ten with a sign, which is mandatory for more than four digits,</li>
+ * <li>the fraction has up to nine digits, a decimal point without digits is accepted,</li>
+ * <li>the offset is {@code Z} or {@code +HH:mm[:ss]} within +-18:00. Offsets of hours only such as {@code +01},
+ * which newer JDKs parse leniently, are rejected, as are offsets without colons,</li>
+ * <li>{@code T} and {@code Z} may be lower case.</li>
+ * </ul>
+ */
 @Slf4j
 public class DateGmtValidator implements ConstraintValidator<IsDateGMT, String>
 {
+    private static final long MAX_YEAR = 999_999_999L;
+    private static final int MIN_YEAR_DIGITS = 4;
+    private static final int MAX_YEAR_DIGITS = 10;
+    private static final int MAX_FRACTION_DIGITS = 9;
+    private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+    private static final int INVALID = -1;
+
     @Override
     public boolean isValid(String dateGmt, ConstraintValidatorContext constraintValidatorContext)
     {
-        boolean result = false;
-        if (dateGmt != null)
+        return isOffsetDateTime(dateGmt);
+    }
+
+    public static boolean isOffsetDateTime(String value)
+    {
+        if (value == null)
+        {
+            return false;
+        }
+        int length = value.length();
+        int pos = 0;
+
+        // Year: four digits, more only with a leading sign, no negative zero
+        boolean positive = false;
+        boolean negative = false;
+        if (pos < length && (value.charAt(pos) == '+' || value.charAt(pos) == '-'))
+        {
+            positive = value.charAt(pos) == '+';
+            negative = !positive;
+            pos++;
+        }
+        int yearStart = pos;
+        long year = 0;
+        while (pos < length && pos - yearStart < MAX_YEAR_DIGITS && isDigit(value.charAt(pos)))
+        {
+            year = year * 10 + (value.charAt(pos++) - '0');
+        }
+        int yearDigits = pos - yearStart;
+        if (yearDigits < MIN_YEAR_DIGITS
+                || (negative && year == 0)
+                || (positive && yearDigits <= MIN_YEAR_DIGITS)
+                || (!positive && !negative && yearDigits > MIN_YEAR_DIGITS)
+                || year > MAX_YEAR)
+        {
+            return false;
+        }
+        if (negative)
+        {
+            year = -year;
+        }
+
+        if (!isChar(value, pos, '-'))
+        {
+            return false;
+        }
+        int month = twoDigits(value, pos + 1);
+        if (month < 1 || month > 12 || !isChar(value, pos + 3, '-'))
+        {
+            return false;
+        }
+        int day = twoDigits(value, pos + 4);
+        if (day < 1 || day > lengthOfMonth(year, month) || !isCharIgnoreCase(value, pos + 6, 'T'))
+        {
+            return false;
+        }
+        pos += 7;
+
+        // Time: HH:mm with optional :ss and an optional fraction of up to nine digits
+        int hour = twoDigits(value, pos);
+        if (hour < 0 || hour > 23 || !isChar(value, pos + 2, ':'))
+        {
+            return false;
+        }
+        int minute = twoDigits(value, pos + 3);
+        if (minute < 0 || minute > 59)
+        {
+            return false;
+        }
+        pos += 5;
+        if (isChar(value, pos, ':'))
         {
-            try
+            int second = twoDigits(value, pos + 1);
+            if (second < 0 || second > 59)
+            {
+                return false;
+            }
+            pos += 3;
+            if (isChar(value, pos, '.'))
             {
-                LocalDateTime.parse(dateGmt, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
-                result = true;
+                int fractionEnd = Math.min(pos + 1 + MAX_FRACTION_DIGITS, length);
+                pos++;
+                while (pos < fractionEnd && isDigit(value.charAt(pos)))
+                {
+                    pos++;
+                }
             }
-            catch (DateTimeParseException ignored) { }
         }
-        return result;
+
+        // Offset: Z or +HH:mm with optional :ss, within +-18:00
+        if (pos >= length)
+        {
+            return false;
+        }
+        char sign = value.charAt(pos);
+        if (sign == 'Z' || sign == 'z')
+        {
+            return pos + 1 == length;
+        }
+        if (sign != '+' && sign != '-')
+        {
+            return false;
+        }
+        int offsetHours = twoDigits(value, pos + 1);
+        if (offsetHours < 0 || offsetHours > 23)
+        {
+            return false;
+        }
+        pos += 3;
+        int offsetSeconds = offsetHours * 3600;
+        int offsetMinutes = offsetPart(value, pos);
+        if (offsetMinutes == INVALID)
+        {
+            return false;
+        }
+        offsetSeconds += offsetMinutes * 60;
+        pos += 3;
+        int offsetSecond = offsetPart(value, pos);
+        if (offsetSecond != INVALID)
+        {
+            offsetSeconds += offsetSecond;
+            pos += 3;
+        }
+        return pos == length && offsetSeconds <= MAX_OFFSET_SECONDS;
+    }
+
+    /**
+     * @return the value of {@code :mm} at the position, {@link #INVALID} if there is none
+     */
+    private static int offsetPart(String value, int pos)
+    {
+        if (!isChar(value, pos, ':'))
+        {
+            return INVALID;
+        }
+        int part = twoDigits(value, pos + 1);
+        return part > 59 ? INVALID : part;
+    }
+
+    /**
+     * @return the value of the two digits at the position, {@link #INVALID} if there are no two digits
+     */
+    private static int twoDigits(String value, int pos)
+    {
+        if (pos + 2 > value.length())
+        {
+            return INVALID;
+        }
+        char tens = value.charAt(pos);
+        char units = value.charAt(pos + 1);
+        if (!isDigit(tens) || !isDigit(units))
+        {
+            return INVALID;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
+    private static boolean isChar(String value, int pos, char expected)
+    {
+        return pos < value.length() && value.charAt(pos) == expected;
+    }
+
+    private static boolean isCharIgnoreCase(String value, int pos, char expected)
+    {
+        return pos < value.length() && Character.toUpperCase(value.charAt(pos)) == expected;
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(long year, int month)
+    {
+        switch (month)
+        {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isLeapYear(long year)
+    {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
     }
 }
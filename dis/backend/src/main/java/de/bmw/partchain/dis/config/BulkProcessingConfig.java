@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.config;
+
+import de.bmw.partchain.dis.resilience.TenantFairExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Configuration
+public class BulkProcessingConfig
+{
+    public static final String BULK_ASSET_EXECUTOR = "bulkAssetExecutor";
+    public static final String BULK_JOB_EXECUTOR = "bulkJobExecutor";
+    public static final String BACKGROUND_INGEST_EXECUTOR = "backgroundIngestExecutor";
+
+    @Value(value = "${bulk.workers:8}")
+    private int workers;
+
+    @Value(value = "${bulk.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value(value = "${bulk.job.workers:2}")
+    private int jobWorkers;
+
+    @Value(value = "${bulk.job.queue-capacity:100}")
+    private int jobQueueCapacity;
+
+    @Value(value = "${bulk.job.max-running-per-tenant:1}")
+    private int jobMaxRunningPerTenant;
+
+    @Value(value = "${bulk.background.workers:4}")
+    private int backgroundWorkers;
+
+    @Value(value = "${bulk.background.queue-capacity:10000}")
+    private int backgroundQueueCapacity;
+
+    @Value(value = "${bulk.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+
+    @Value(value = "${bulk.tenant-weights:}")
+    private String tenantWeights;
+
+    @Bean
+    public ThreadPoolTaskExecutor bulkAssetThreadPool()
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dis-bulk-");
+        // A saturated pool makes the submitting request thread process the asset itself instead of failing it
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        log.info("[INIT LOAD] Bulk asset executor initialized with {} workers.", workers);
+        return executor;
+    }
+
+    /**
+     * Runs every task with the security context of the thread that submitted it, which is needed because
+     * the asset mapping reads the mspid claim of the caller.
+     */
+    @Bean(name = BULK_ASSET_EXECUTOR)
+    public Executor bulkAssetExecutor(ThreadPoolTaskExecutor bulkAssetThreadPool)
+    {
+        return new DelegatingSecurityContextExecutor(bulkAssetThreadPool);
+    }
+
+    /**
+     * Picks the queued bulk jobs fairly across the tenants, and a tenant only runs as many jobs at once as configured,
+     * so that the backfill of one tenant does not hold all job workers.
+     */
+    @Bean(name = BULK_JOB_EXECUTOR)
+    public TenantFairExecutor bulkJobExecutor()
+    {
+        log.info("[INIT LOAD] Bulk job executor initialized with {} workers.", jobWorkers);
+        return new TenantFairExecutor("dis-bulk-job-", jobWorkers, jobQueueCapacity, jobMaxRunningPerTenant,
+                TenantFairExecutor.parseWeights(tenantWeights), false,
+                TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds));
+    }
+
+    /**
+     * Shared by the assets of bulk jobs and the deferred BPN enrichment, so that the background work of the tenants
+     * is interleaved by their weights. Once the backlog is full the submitting thread runs the task itself.
+     */
+    @Bean(name = BACKGROUND_INGEST_EXECUTOR)
+    public TenantFairExecutor backgroundIngestExecutor()
+    {
+        log.info("[INIT LOAD] Background ingest executor initialized with {} workers.", backgroundWorkers);
+        return new TenantFairExecutor("dis-background-", backgroundWorkers, backgroundQueueCapacity, 0,
+                TenantFairExecutor.parseWeights(tenantWeights), true,
+                TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds));
+    }
+}
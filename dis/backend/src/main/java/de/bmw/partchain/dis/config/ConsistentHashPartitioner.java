@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.config;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.clients.producer.UniformStickyPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+
+/**
+ * Partitions keyed records with a jump consistent hash of the murmur2 hash of the key. Like the default partitioner
+ * all records of a key go to the same partition, but when the partition count of a topic is raised only the share of
+ * keys moving to the new partitions changes partition, so the order per key is kept for all other keys. Records
+ * without a key stick to one partition until its batch is full like with the default partitioner, so they still fill
+ * the batches.
+ */
+public class ConsistentHashPartitioner implements Partitioner
+{
+    private final UniformStickyPartitioner unkeyedPartitioner = new UniformStickyPartitioner();
+
+    @Override
+    public void configure(Map<String, ?> configs)
+    {
+        unkeyedPartitioner.configure(configs);
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster)
+    {
+        if (keyBytes != null) {
+            return jumpConsistentHash(Utils.murmur2(keyBytes) & 0xffffffffL, cluster.partitionCountForTopic(topic));
+        }
+        return unkeyedPartitioner.partition(topic, null, null, value, valueBytes, cluster);
+    }
+
+    @Override
+    public void onNewBatch(String topic, Cluster cluster, int prevPartition)
+    {
+        unkeyedPartitioner.onNewBatch(topic, cluster, prevPartition);
+    }
+
+    @Override
+    public void close()
+    {
+        unkeyedPartitioner.close();
+    }
+
+    /**
+     * Jump consistent hash of Lamping and Veach.
+     */
+    static int jumpConsistentHash(long key, int buckets)
+    {
+        long hash = key;
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            hash = hash * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((hash >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pooled keep-alive HTTP client used for the outbound CDQ calls, so that connections and TLS sessions are reused
+ * between lookups.
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfig
+{
+    @Value(value = "${http.client.max-connections:50}")
+    private int maxConnections;
+
+    @Value(value = "${http.client.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value(value = "${http.client.keep-alive-seconds:30}")
+    private long keepAliveSeconds;
+
+    @Value(value = "${http.client.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Value(value = "${http.client.validate-after-inactivity-millis:2000}")
+    private int validateAfterInactivityMillis;
+
+    @Value(value = "${http.client.pool-wait-millis:1000}")
+    private int poolWaitMillis;
+
+    @Bean
+    public MeteredHttpConnectionManager httpConnectionManager()
+    {
+        MeteredHttpConnectionManager connectionManager = new MeteredHttpConnectionManager(-1, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMillis);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient httpClient(MeteredHttpConnectionManager httpConnectionManager)
+    {
+        long keepAliveMillis = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                // Servers which do not send a Keep-Alive header get the configured keep alive
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? keepAlive : keepAliveMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictionSeconds, TimeUnit.SECONDS)
+                .build();
+        log.info("[INIT LOAD] Pooled HTTP client initialized with {} connections ({} per route).",
+                maxConnections, maxConnectionsPerRoute);
+        return httpClient;
+    }
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory httpRequestFactory(CloseableHttpClient httpClient)
+    {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectionRequestTimeout(poolWaitMillis);
+        return requestFactory;
+    }
+}
@@ -19,6 +19,7 @@ package de.bmw.partchain.dis.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -37,24 +38,115 @@ public class KafkaProducerConfig
     @Value(value = "${kafka.bootstrapAddress}")
     private String bootstrapAddress;
 
+    @Value(value = "${kafka.producer.profile:default}")
+    private String profile;
+
+    @Value(value = "${kafka.producer.batch-size:}")
+    private String batchSize;
+
+    @Value(value = "${kafka.producer.linger-ms:}")
+    private String lingerMs;
+
+    @Value(value = "${kafka.producer.compression-type:}")
+    private String compressionType;
+
+    @Value(value = "${kafka.producer.acks:}")
+    private String acks;
+
+    @Value(value = "${kafka.producer.enable-idempotence:}")
+    private String enableIdempotence;
+
+    @Value(value = "${kafka.producer.max-block-ms:}")
+    private String maxBlockMs;
+
+    @Value(value = "${ledger.outbox.enabled:false}")
+    private boolean outboxEnabled;
+
+    /**
+     * Used with the ledger outbox unless kafka.producer.max-block-ms is set, so that records go to the outbox
+     * instead of blocking the caller for the client default of 60 seconds.
+     */
+    @Value(value = "${ledger.outbox.max-block-ms:1000}")
+    private long outboxMaxBlockMs;
+
+    @Value(value = "${kafka.producer.consistent-hash-partitioner:false}")
+    private boolean consistentHashPartitioner;
+
+    @Value(value = "${ledger.transactional:false}")
+    private boolean transactional;
+
+    /**
+     * Has to be unique per instance, otherwise the instances fence each other's transactions.
+     */
+    @Value(value = "${kafka.producer.transaction-id-prefix:dis-tx-${HOSTNAME:local}-}")
+    private String transactionIdPrefix;
+
     public KafkaProducerConfig()
     {
         log.info("[INIT LOAD] KafkaProducerConfig initialized.");
     }
 
     @Bean
-    public ProducerFactory<String, String> producerFactory()
+    public ProducerFactory<String, byte[]> producerFactory()
     {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.putAll(KafkaProducerProfile.of(profile).producerProperties());
+        putIfSet(configProps, ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        putIfSet(configProps, ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        putIfSet(configProps, ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        putIfSet(configProps, ProducerConfig.ACKS_CONFIG, acks);
+        putIfSet(configProps, ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        putIfSet(configProps, ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+        if (outboxEnabled) {
+            configProps.putIfAbsent(ProducerConfig.MAX_BLOCK_MS_CONFIG, outboxMaxBlockMs);
+        }
+        if (consistentHashPartitioner) {
+            configProps.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, ConsistentHashPartitioner.class);
+        }
+        if (transactional) {
+            requireTransactionalDelivery(configProps);
+        }
+        log.info("[INIT LOAD] Kafka producer profile {}.", profile);
+        DefaultKafkaProducerFactory<String, byte[]> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        if (transactional) {
+            producerFactory.setTransactionIdPrefix(transactionIdPrefix);
+            log.info("[INIT LOAD] Kafka transactions enabled with transaction id prefix {}.", transactionIdPrefix);
+        }
+        return producerFactory;
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate()
+    public KafkaTemplate<String, byte[]> kafkaTemplate()
+    {
+        KafkaTemplate<String, byte[]> kafkaTemplate = new KafkaTemplate<>(producerFactory());
+        // Sends outside of a ledger transaction keep using a plain producer
+        kafkaTemplate.setAllowNonTransactional(true);
+        return kafkaTemplate;
+    }
+
+    /**
+     * Transactions need idempotent delivery acknowledged by all in-sync replicas. The Kafka client only rejects other
+     * settings once it creates the first producer, so the check is done at startup instead.
+     */
+    static void requireTransactionalDelivery(Map<String, Object> configProps)
+    {
+        Object acks = configProps.get(ProducerConfig.ACKS_CONFIG);
+        Object idempotence = configProps.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG);
+        boolean allAcks = "all".equals(String.valueOf(acks)) || "-1".equals(String.valueOf(acks));
+        if (!allAcks || !"true".equalsIgnoreCase(String.valueOf(idempotence))) {
+            throw new IllegalStateException(String.format(
+                    "ledger.transactional requires idempotence and acks=all, but the producer has %s=%s and %s=%s",
+                    ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence, ProducerConfig.ACKS_CONFIG, acks));
+        }
+    }
+
+    private static void putIfSet(Map<String, Object> configProps, String key, String value)
     {
-        return new KafkaTemplate<>(producerFactory());
+        if (value != null && !value.trim().isEmpty()) {
+            configProps.put(key, value.trim());
+        }
     }
 }
@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Predefined producer settings, each of them can still be overridden by its own property.
+ */
+public enum KafkaProducerProfile
+{
+    /**
+     * The defaults of the Kafka client.
+     */
+    DEFAULT(null, null, null, null, null),
+    /**
+     * Large compressed batches and idempotent delivery acknowledged by all in-sync replicas.
+     */
+    THROUGHPUT(262144, 20, "lz4", "all", true),
+    /**
+     * Records are sent right away and acknowledged by the partition leader only.
+     */
+    LATENCY(16384, 0, "none", "1", false);
+
+    private final Integer batchSize;
+    private final Integer lingerMs;
+    private final String compressionType;
+    private final String acks;
+    private final Boolean idempotence;
+
+    KafkaProducerProfile(Integer batchSize, Integer lingerMs, String compressionType, String acks, Boolean idempotence)
+    {
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.compressionType = compressionType;
+        this.acks = acks;
+        this.idempotence = idempotence;
+    }
+
+    public Map<String, Object> producerProperties()
+    {
+        Map<String, Object> properties = new HashMap<>();
+        putIfSet(properties, ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        putIfSet(properties, ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        putIfSet(properties, ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        putIfSet(properties, ProducerConfig.ACKS_CONFIG, acks);
+        putIfSet(properties, ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        return properties;
+    }
+
+    public static KafkaProducerProfile of(String value)
+    {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static void putIfSet(Map<String, Object> properties, String key, Object value)
+    {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.config;
+
+import de.bmw.partchain.dis.asset.gateway.LedgerOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+@ConditionalOnProperty(name = "ledger.outbox.enabled", havingValue = "true")
+public class LedgerOutboxConfig
+{
+    /**
+     * Has to be on a persistent volume, the records would otherwise be lost with the container.
+     */
+    @Value(value = "${ledger.outbox.directory:}")
+    private String directory;
+
+    @Value(value = "${ledger.outbox.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    @Value(value = "${ledger.outbox.fsync:true}")
+    private boolean fsync;
+
+    @Bean(destroyMethod = "close")
+    public LedgerOutbox ledgerOutbox() throws IOException
+    {
+        if (directory.trim().isEmpty()) {
+            throw new IllegalStateException("ledger.outbox.directory has to be set to a persistent volume");
+        }
+        return new LedgerOutbox(Paths.get(directory), segmentBytes, fsync);
+    }
+}
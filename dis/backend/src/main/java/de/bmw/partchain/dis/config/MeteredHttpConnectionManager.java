@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.config;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool of the outbound HTTP client which records how long requests wait to lease a connection.
+ */
+@ManagedResource(objectName = "de.bmw.partchain.dis:type=HttpClient,name=ConnectionPool")
+public class MeteredHttpConnectionManager extends PoolingHttpClientConnectionManager
+{
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder leaseTimeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public MeteredHttpConnectionManager(long timeToLive, TimeUnit unit)
+    {
+        super(timeToLive, unit);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state)
+    {
+        ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest()
+        {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException
+            {
+                long start = System.nanoTime();
+                try {
+                    HttpClientConnection connection = request.get(timeout, unit);
+                    leases.increment();
+                    return connection;
+                } catch (ConnectionPoolTimeoutException e) {
+                    leaseTimeouts.increment();
+                    throw e;
+                } finally {
+                    long waited = System.nanoTime() - start;
+                    waitNanos.add(waited);
+                    maxWaitNanos.accumulate(waited);
+                }
+            }
+
+            @Override
+            public boolean cancel()
+            {
+                return request.cancel();
+            }
+        };
+    }
+
+    @ManagedAttribute
+    public int getLeasedConnections()
+    {
+        return getTotalStats().getLeased();
+    }
+
+    @ManagedAttribute
+    public int getAvailableConnections()
+    {
+        return getTotalStats().getAvailable();
+    }
+
+    @ManagedAttribute
+    public int getPendingRequests()
+    {
+        return getTotalStats().getPending();
+    }
+
+    @ManagedAttribute
+    public double getUtilisation()
+    {
+        PoolStats stats = getTotalStats();
+        return stats.getMax() == 0 ? 0 : (double) stats.getLeased() / stats.getMax();
+    }
+
+    @ManagedAttribute
+    public long getLeaseCount()
+    {
+        return leases.sum();
+    }
+
+    @ManagedAttribute
+    public long getLeaseTimeoutCount()
+    {
+        return leaseTimeouts.sum();
+    }
+
+    @ManagedAttribute
+    public double getAverageWaitMillis()
+    {
+        long count = leases.sum() + leaseTimeouts.sum();
+        return count == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / count;
+    }
+
+    @ManagedAttribute
+    public double getMaxWaitMillis()
+    {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+}
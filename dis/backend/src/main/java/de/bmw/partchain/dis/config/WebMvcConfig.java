@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.config;
+
+import de.bmw.partchain.dis.asset.controller.IngestLoadSheddingInterceptor;
+import de.bmw.partchain.dis.asset.controller.TenantAdmissionInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Slf4j
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer
+{
+    private final IngestLoadSheddingInterceptor loadSheddingInterceptor;
+    private final TenantAdmissionInterceptor tenantAdmissionInterceptor;
+
+    public WebMvcConfig(IngestLoadSheddingInterceptor loadSheddingInterceptor,
+                        TenantAdmissionInterceptor tenantAdmissionInterceptor)
+    {
+        this.loadSheddingInterceptor = loadSheddingInterceptor;
+        this.tenantAdmissionInterceptor = tenantAdmissionInterceptor;
+        log.info("[INIT LOAD] WebMvcConfig initialized.");
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry)
+    {
+        // Runs first, so that requests are shed before anything else is done for them
+        registry.addInterceptor(loadSheddingInterceptor).addPathPatterns("/asset", "/asset/**")
+                .excludePathPatterns("/asset/jobs/**");
+        // Asynchronous bulk jobs return right away, they are only limited by their assets
+        registry.addInterceptor(tenantAdmissionInterceptor).addPathPatterns("/asset/bulk", "/asset/bulk/stream");
+    }
+}
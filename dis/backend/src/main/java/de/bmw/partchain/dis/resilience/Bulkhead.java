@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of concurrent calls to a dependency, callers that do not get a permit within the maximum wait
+ * time are rejected.
+ */
+public class Bulkhead
+{
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final LongAdder rejections = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrentCalls, long maxWaitMillis)
+    {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    /**
+     * @throws CallNotPermittedException if no permit became available in time
+     */
+    public void acquirePermission()
+    {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejections.increment();
+            throw new CallNotPermittedException(String.format("Bulkhead '%s' is full", name));
+        }
+    }
+
+    public void releasePermission()
+    {
+        permits.release();
+    }
+
+    public int getActiveCalls()
+    {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    public long getRejectionCount()
+    {
+        return rejections.sum();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker. It opens once the failure rate of the last {@code slidingWindowSize} calls reaches
+ * the threshold, rejects all calls while open and after the open duration lets a few trial calls pass in the half
+ * open state, which close it again if they all succeed.
+ */
+@Slf4j
+public class CircuitBreaker
+{
+    public enum State
+    {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final int minimumNumberOfCalls;
+    private final long openDurationMillis;
+    private final int permittedCallsInHalfOpenState;
+    private final boolean[] window;
+    private final LongSupplier clock;
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder transitions = new LongAdder();
+
+    private State state = State.CLOSED;
+    private int windowPosition;
+    private int windowCalls;
+    private int windowFailures;
+    private long openUntil;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(String name, int failureRateThreshold, int slidingWindowSize, int minimumNumberOfCalls,
+                          long openDurationMillis, int permittedCallsInHalfOpenState)
+    {
+        this(name, failureRateThreshold, slidingWindowSize, minimumNumberOfCalls, openDurationMillis,
+                permittedCallsInHalfOpenState, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock current time in milliseconds
+     */
+    public CircuitBreaker(String name, int failureRateThreshold, int slidingWindowSize, int minimumNumberOfCalls,
+                          long openDurationMillis, int permittedCallsInHalfOpenState, LongSupplier clock)
+    {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumNumberOfCalls = Math.min(minimumNumberOfCalls, slidingWindowSize);
+        this.openDurationMillis = openDurationMillis;
+        this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        this.window = new boolean[slidingWindowSize];
+        this.clock = clock;
+    }
+
+    /**
+     * @throws CallNotPermittedException if the circuit breaker is open or all trial calls are already taken
+     */
+    public synchronized void acquirePermission()
+    {
+        if (state == State.OPEN && clock.getAsLong() >= openUntil) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED || (state == State.HALF_OPEN && halfOpenPermits < permittedCallsInHalfOpenState)) {
+            if (state == State.HALF_OPEN) {
+                halfOpenPermits++;
+            }
+            return;
+        }
+        rejections.increment();
+        throw new CallNotPermittedException(String.format("Circuit breaker '%s' is %s", name, state));
+    }
+
+    /**
+     * Gives back a permission for a call that was not executed after all.
+     */
+    public synchronized void releasePermission()
+    {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized void onSuccess()
+    {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= permittedCallsInHalfOpenState) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onError()
+    {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCalls >= minimumNumberOfCalls && getFailureRate() >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState()
+    {
+        return state;
+    }
+
+    /**
+     * @return the failure rate in percent of the calls in the sliding window
+     */
+    public synchronized float getFailureRate()
+    {
+        return windowCalls == 0 ? 0 : 100f * windowFailures / windowCalls;
+    }
+
+    public long getRejectionCount()
+    {
+        return rejections.sum();
+    }
+
+    public long getTransitionCount()
+    {
+        return transitions.sum();
+    }
+
+    private void record(boolean failure)
+    {
+        if (windowCalls == window.length) {
+            if (window[windowPosition]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowPosition] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowPosition = (windowPosition + 1) % window.length;
+    }
+
+    private void transitionTo(State newState)
+    {
+        log.warn("Circuit breaker '{}' changed from {} to {}", name, state, newState);
+        transitions.increment();
+        state = newState;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+        if (newState == State.OPEN) {
+            openUntil = clock.getAsLong() + openDurationMillis;
+        } else if (newState == State.CLOSED) {
+            windowPosition = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+        }
+    }
+}
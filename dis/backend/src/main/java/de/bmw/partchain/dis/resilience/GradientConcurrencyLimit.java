@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the latency of the protected work, following the gradient approach of TCP Vegas.
+ * A long term average of the latency serves as the uncongested baseline. Each sample compares the baseline with the
+ * measured latency: while they are close the limit grows by a queue allowance of the square root of the limit, and
+ * once the latency rises above the tolerated multiple of the baseline the limit shrinks with the ratio, by at most
+ * half per sample. Changes are smoothed, and the limit only grows while at least half of it is in use, so an idle
+ * system does not build up a limit it never proved to handle. When the latency drops far below the baseline, e.g.
+ * after a long congestion, the baseline decays towards it.
+ */
+public class GradientConcurrencyLimit
+{
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double baselineWeight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double baselineNanos;
+
+    /**
+     * @param tolerance multiple of the baseline latency up to which the limit is not reduced
+     * @param smoothing share of the new limit taken over per sample
+     * @param baselineSamples number of samples the long term average spans
+     */
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                                    int baselineSamples)
+    {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.baselineWeight = 2.0 / (baselineSamples + 1);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    public boolean tryAcquire()
+    {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release()
+    {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized void onSample(long latencyNanos)
+    {
+        if (latencyNanos <= 0) {
+            return;
+        }
+        baselineNanos = baselineNanos == 0
+                ? latencyNanos : baselineNanos * (1 - baselineWeight) + latencyNanos * baselineWeight;
+        if (baselineNanos / latencyNanos > 2) {
+            baselineNanos *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / latencyNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        if (newLimit > limit && inFlight.get() < limit / 2) {
+            return;
+        }
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.min(maxLimit, Math.max(minLimit, newLimit));
+    }
+
+    public int getLimit()
+    {
+        return (int) limit;
+    }
+
+    public int getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    public double getBaselineMillis()
+    {
+        return baselineNanos / 1_000_000.0;
+    }
+}
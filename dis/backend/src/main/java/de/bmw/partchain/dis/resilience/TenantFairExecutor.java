@@ -0,0 +1,337 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Worker pool shared by tenants, which takes the queued tasks by deficit round robin instead of first come first
+ * served. Every tenant with queued tasks gets a turn in which it may run as many tasks as its weight, so a tenant
+ * with a large backlog only delays the tasks of the other tenants by its share of the workers. A tenant may
+ * additionally be limited in the number of its tasks running at the same time.
+ */
+@Slf4j
+public class TenantFairExecutor
+{
+    private final int capacity;
+    private final int maxRunningPerTenant;
+    private final boolean callerRunsWhenFull;
+    private final long shutdownTimeoutMillis;
+    private final String threadNamePrefix;
+    private final Map<String, Integer> weights;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition tasksAvailable = lock.newCondition();
+    private final Map<String, TenantQueue> tenants = new HashMap<>();
+    // Tenants with queued tasks which may run one, the tenant at the head has its turn
+    private final ArrayDeque<TenantQueue> turns = new ArrayDeque<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private int queued;
+    private boolean shutdown;
+
+    /**
+     * @param capacity number of tasks which may be queued over all tenants
+     * @param maxRunningPerTenant number of tasks of a tenant which may run at the same time, 0 for no limit
+     * @param weights tasks run per turn of the tenants not having a weight of 1
+     * @param callerRunsWhenFull whether a task over capacity is run by the submitting thread instead of rejected
+     * @param shutdownTimeoutMillis time the workers get on shutdown to finish the queued tasks
+     */
+    public TenantFairExecutor(String threadNamePrefix, int workers, int capacity, int maxRunningPerTenant,
+                              Map<String, Integer> weights, boolean callerRunsWhenFull, long shutdownTimeoutMillis)
+    {
+        this.threadNamePrefix = threadNamePrefix;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.capacity = capacity;
+        this.maxRunningPerTenant = maxRunningPerTenant > 0 ? maxRunningPerTenant : Integer.MAX_VALUE;
+        this.weights = weights;
+        this.callerRunsWhenFull = callerRunsWhenFull;
+        for (int i = 1; i <= workers; i++) {
+            Thread worker = new Thread(this::work, threadNamePrefix + i);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if the capacity is exhausted and the caller does not run the task
+     */
+    public void execute(String mspId, Runnable task)
+    {
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor is shut down");
+            }
+            if (queued < capacity) {
+                TenantQueue tenant = tenants.computeIfAbsent(String.valueOf(mspId),
+                        key -> new TenantQueue(Math.max(1, weights.getOrDefault(key, 1))));
+                tenant.tasks.add(new Task(task, System.nanoTime()));
+                queued++;
+                offerTurn(tenant);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!callerRunsWhenFull) {
+            throw new RejectedExecutionException(String.format("%d tasks are already queued", capacity));
+        }
+        task.run();
+    }
+
+    public Executor forTenant(String mspId)
+    {
+        return task -> execute(mspId, task);
+    }
+
+    /**
+     * Rejects new tasks and waits up to the shutdown timeout for the workers to finish the queued tasks. The tasks
+     * still queued after the timeout are dropped, the tasks still running are left to the daemon workers.
+     *
+     * @return number of dropped tasks
+     */
+    public int shutdown()
+    {
+        lock.lock();
+        try {
+            shutdown = true;
+            tasksAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        try {
+            for (Thread worker : workers) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    break;
+                }
+                if (worker != Thread.currentThread()) {
+                    worker.join(remainingMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int dropped;
+        int running = 0;
+        lock.lock();
+        try {
+            dropped = queued;
+            for (TenantQueue tenant : tenants.values()) {
+                tenant.tasks.clear();
+                tenant.hasTurn = false;
+                running += tenant.running;
+            }
+            turns.clear();
+            queued = 0;
+        } finally {
+            lock.unlock();
+        }
+        if (dropped > 0 || running > 0) {
+            log.warn("Executor {} shut down after {} ms with {} queued tasks dropped and {} tasks still running",
+                    threadNamePrefix, shutdownTimeoutMillis, dropped, running);
+        }
+        return dropped;
+    }
+
+    public int getQueuedCount()
+    {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Long> getQueueDepths()
+    {
+        return tenantStatistics(tenant -> tenant.tasks.size());
+    }
+
+    public Map<String, Long> getRunningCounts()
+    {
+        return tenantStatistics(tenant -> tenant.running);
+    }
+
+    /**
+     * @return time the oldest queued task of each tenant is waiting for
+     */
+    public Map<String, Long> getOldestWaitMillis()
+    {
+        long now = System.nanoTime();
+        return tenantStatistics(tenant -> tenant.tasks.isEmpty()
+                ? 0 : TimeUnit.NANOSECONDS.toMillis(now - tenant.tasks.peek().queuedNanos));
+    }
+
+    /**
+     * @return average time the started tasks of each tenant were waiting for
+     */
+    public Map<String, Long> getAverageWaitMillis()
+    {
+        return tenantStatistics(tenant -> tenant.started == 0
+                ? 0 : TimeUnit.NANOSECONDS.toMillis(tenant.waitedNanos / tenant.started));
+    }
+
+    private Map<String, Long> tenantStatistics(ToLongFunction<TenantQueue> statistic)
+    {
+        lock.lock();
+        try {
+            Map<String, Long> statistics = new LinkedHashMap<>();
+            tenants.forEach((mspId, tenant) -> statistics.put(mspId, statistic.applyAsLong(tenant)));
+            return Collections.unmodifiableMap(statistics);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work()
+    {
+        Task task;
+        while ((task = take()) != null) {
+            try {
+                task.runnable.run();
+            } catch (Throwable throwable) {
+                log.error("Task of tenant executor failed", throwable);
+            } finally {
+                finished(task.tenant);
+            }
+        }
+    }
+
+    private Task take()
+    {
+        lock.lock();
+        try {
+            while (turns.isEmpty()) {
+                if (shutdown) {
+                    return null;
+                }
+                tasksAvailable.awaitUninterruptibly();
+            }
+            TenantQueue tenant = turns.peekFirst();
+            if (tenant.deficit == 0) {
+                tenant.deficit = tenant.weight;
+            }
+            Task task = tenant.tasks.poll();
+            task.tenant = tenant;
+            tenant.deficit--;
+            tenant.running++;
+            tenant.started++;
+            tenant.waitedNanos += System.nanoTime() - task.queuedNanos;
+            queued--;
+
+            if (tenant.tasks.isEmpty() || tenant.running >= maxRunningPerTenant) {
+                // A tenant leaving the round robin does not keep the rest of its turn
+                turns.pollFirst();
+                tenant.hasTurn = false;
+                tenant.deficit = 0;
+            } else if (tenant.deficit == 0) {
+                turns.addLast(turns.pollFirst());
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finished(TenantQueue tenant)
+    {
+        lock.lock();
+        try {
+            tenant.running--;
+            offerTurn(tenant);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void offerTurn(TenantQueue tenant)
+    {
+        if (!tenant.hasTurn && !tenant.tasks.isEmpty() && tenant.running < maxRunningPerTenant) {
+            tenant.hasTurn = true;
+            turns.addLast(tenant);
+            tasksAvailable.signal();
+        }
+    }
+
+    /**
+     * Parses comma separated mspId:weight pairs.
+     */
+    public static Map<String, Integer> parseWeights(String tenantWeights)
+    {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String tenantWeight : tenantWeights.split(",")) {
+            if (tenantWeight.trim().isEmpty()) {
+                continue;
+            }
+            String[] mspIdAndWeight = tenantWeight.split(":");
+            if (mspIdAndWeight.length != 2) {
+                throw new IllegalArgumentException("Invalid weight of tenant: " + tenantWeight);
+            }
+            weights.put(mspIdAndWeight[0].trim(), Integer.parseInt(mspIdAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    private static class TenantQueue
+    {
+        private final int weight;
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private boolean hasTurn;
+        private int deficit;
+        private int running;
+        private long started;
+        private long waitedNanos;
+
+        private TenantQueue(int weight)
+        {
+            this.weight = weight;
+        }
+    }
+
+    private static class Task
+    {
+        private final Runnable runnable;
+        private final long queuedNanos;
+        private TenantQueue tenant;
+
+        private Task(Runnable runnable, long queuedNanos)
+        {
+            this.runnable = runnable;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+}
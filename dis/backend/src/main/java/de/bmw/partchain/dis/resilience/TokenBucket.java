@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2021 The PartChain Authors. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package de.bmw.partchain.dis.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket which may go into debt. A call is granted as long as the bucket holds any token and takes its whole
+ * cost, so calls larger than the capacity still pass once the bucket is full, and the following calls wait until the
+ * debt is refilled. The long term rate never exceeds the refill rate.
+ */
+public class TokenBucket
+{
+    private final double tokensPerMilli;
+    private final double capacity;
+    private final LongSupplier clock;
+
+    private double tokens;
+    private long updated;
+
+    public TokenBucket(double tokensPerSecond, double capacity, LongSupplier clock)
+    {
+        this.tokensPerMilli = tokensPerSecond / 1000;
+        this.capacity = capacity;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.updated = clock.getAsLong();
+    }
+
+    /**
+     * @return zero if granted, otherwise the milliseconds until the bucket holds a token again
+     */
+    public synchronized long tryAcquire(long cost)
+    {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + Math.max(0, now - updated) * tokensPerMilli);
+        updated = now;
+        if (tokens > 0) {
+            tokens -= cost;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil(-tokens / tokensPerMilli));
+    }
+}
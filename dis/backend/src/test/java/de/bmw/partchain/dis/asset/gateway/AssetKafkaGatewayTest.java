@@ -0,0 +1,126 @@
+package de.bmw.partchain.dis.asset.gateway;
+
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.gateway.GatewayPayloadCodec;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetKafkaGatewayTest {
+
+    private final RecordingKafkaTemplate kafkaTemplate = new RecordingKafkaTemplate();
+
+    @Test
+    void recordOfAKeyWaitsForThePreviousOneToReachKafkaOrTheOutbox() throws Exception {
+        try (LedgerOutbox outbox = new LedgerOutbox(Files.createTempDirectory("outbox"), 1 << 20, false)) {
+            AssetKafkaGateway gateway = new AssetKafkaGateway(kafkaTemplate, new GatewayPayloadCodec(), "json", "",
+                    "serial-number", Optional.of(outbox), 0.1);
+
+            CompletableFuture<Void> first = gateway.sendToLedger(asset("SN-1", "first"));
+            CompletableFuture<Void> second = gateway.sendToLedger(asset("SN-1", "second"));
+            CompletableFuture<Void> other = gateway.sendToLedger(asset("SN-2", "other"));
+            assertEquals(2, kafkaTemplate.sent.size());
+            assertFalse(second.isDone());
+
+            // The first record fails late, so it and all records of its key after it go to the outbox in order
+            kafkaTemplate.sent.get(0).getValue().setException(new TimeoutException("expired"));
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+
+            assertEquals(2, kafkaTemplate.sent.size());
+            assertFalse(other.isDone());
+            assertEquals(Arrays.asList("first", "second"), outbox.read(10).stream()
+                    .map(entry -> manufacturerLine(entry.getRecord()))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void recordsOfAKeyAreSentDirectlyOnceThePreviousOneIsAcknowledged() throws Exception {
+        try (LedgerOutbox outbox = new LedgerOutbox(Files.createTempDirectory("outbox"), 1 << 20, false)) {
+            AssetKafkaGateway gateway = new AssetKafkaGateway(kafkaTemplate, new GatewayPayloadCodec(), "json", "",
+                    "serial-number", Optional.of(outbox), 0.1);
+
+            CompletableFuture<Void> first = gateway.sendToLedger(asset("SN-1", "first"));
+            CompletableFuture<Void> second = gateway.sendToLedger(asset("SN-1", "second"));
+            kafkaTemplate.sent.get(0).getValue().set(null);
+            first.get(5, TimeUnit.SECONDS);
+            awaitSent(2);
+
+            kafkaTemplate.sent.get(1).getValue().set(null);
+            second.get(5, TimeUnit.SECONDS);
+            assertEquals("second", manufacturerLine(kafkaTemplate.sent.get(1).getKey()));
+            assertTrue(outbox.isEmpty());
+        }
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (kafkaTemplate.sent.size() < count && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(count, kafkaTemplate.sent.size());
+    }
+
+    private static Asset asset(String serialNumber, String manufacturerLine) {
+        Asset asset = new Asset();
+        asset.setMspId("MSP");
+        asset.setSerialNumberManufacturer(serialNumber);
+        asset.setManufacturerLine(manufacturerLine);
+        return asset;
+    }
+
+    private static String manufacturerLine(ProducerRecord<String, byte[]> record) {
+        String json = new String(record.value(), StandardCharsets.UTF_8);
+        int start = json.indexOf("\"manufacturerLine\":\"") + "\"manufacturerLine\":\"".length();
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    /**
+     * Keeps the sends pending until the test completes them.
+     */
+    private static final class RecordingKafkaTemplate extends KafkaTemplate<String, byte[]> {
+
+        private final List<Map.Entry<ProducerRecord<String, byte[]>,
+                SettableListenableFuture<SendResult<String, byte[]>>>> sent =
+                Collections.synchronizedList(new ArrayList<>());
+
+        private RecordingKafkaTemplate() {
+            super(new DefaultKafkaProducerFactory<>(Collections.emptyMap()));
+        }
+
+        @Override
+        public ListenableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+            SettableListenableFuture<SendResult<String, byte[]>> future = new SettableListenableFuture<>();
+            sent.add(new AbstractMap.SimpleEntry<>(record, future));
+            return future;
+        }
+
+        @Override
+        public Map<MetricName, ? extends Metric> metrics() {
+            return Collections.emptyMap();
+        }
+    }
+}
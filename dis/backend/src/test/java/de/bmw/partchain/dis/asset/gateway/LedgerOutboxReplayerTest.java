@@ -0,0 +1,94 @@
+package de.bmw.partchain.dis.asset.gateway;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerOutboxReplayerTest {
+
+    private final FailingKafkaTemplate kafkaTemplate = new FailingKafkaTemplate();
+
+    @Test
+    void recordRejectedByKafkaIsSkipped() throws Exception {
+        try (LedgerOutbox outbox = outbox("first", "too-large", "last")) {
+            kafkaTemplate.failures.put("too-large", new RecordTooLargeException("too large"));
+            LedgerOutboxReplayer replayer = new LedgerOutboxReplayer(outbox, kafkaTemplate, 10, 1000);
+
+            assertEquals(3, replayer.replayBatch());
+
+            assertTrue(outbox.isEmpty());
+            assertEquals(1, replayer.getSkippedCount());
+            assertEquals(Arrays.asList("first", "too-large", "last"), kafkaTemplate.sent);
+        }
+    }
+
+    @Test
+    void retriableFailureAcknowledgesTheRecordsBeforeIt() throws Exception {
+        try (LedgerOutbox outbox = outbox("first", "unavailable", "last")) {
+            kafkaTemplate.failures.put("unavailable", new TimeoutException("expired"));
+            LedgerOutboxReplayer replayer = new LedgerOutboxReplayer(outbox, kafkaTemplate, 10, 1000);
+
+            assertThrows(ExecutionException.class, replayer::replayBatch);
+
+            outbox.rewind();
+            assertEquals(Arrays.asList("unavailable", "last"), outbox.read(10).stream()
+                    .map(entry -> new String(entry.getRecord().value(), StandardCharsets.UTF_8))
+                    .collect(Collectors.toList()));
+            assertEquals(0, replayer.getSkippedCount());
+        }
+    }
+
+    private static LedgerOutbox outbox(String... values) throws IOException {
+        LedgerOutbox outbox = new LedgerOutbox(Files.createTempDirectory("outbox"), 1 << 20, false);
+        for (String value : values) {
+            outbox.append(new ProducerRecord<>("MSP", value.getBytes(StandardCharsets.UTF_8)));
+        }
+        return outbox;
+    }
+
+    /**
+     * Completes every send at once, failing the records whose value has a failure.
+     */
+    private static final class FailingKafkaTemplate extends KafkaTemplate<String, byte[]> {
+
+        private final Map<String, Exception> failures = new HashMap<>();
+        private final List<String> sent = new ArrayList<>();
+
+        private FailingKafkaTemplate() {
+            super(new DefaultKafkaProducerFactory<>(Collections.emptyMap()));
+        }
+
+        @Override
+        public ListenableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+            String value = new String(record.value(), StandardCharsets.UTF_8);
+            sent.add(value);
+            SettableListenableFuture<SendResult<String, byte[]>> future = new SettableListenableFuture<>();
+            if (failures.containsKey(value)) {
+                future.setException(failures.get(value));
+            } else {
+                future.set(null);
+            }
+            return future;
+        }
+    }
+}
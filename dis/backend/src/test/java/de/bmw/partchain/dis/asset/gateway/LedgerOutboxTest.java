@@ -0,0 +1,120 @@
+package de.bmw.partchain.dis.asset.gateway;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerOutboxTest {
+
+    @Test
+    void recordsAreReadInOrderAcrossSegments() throws IOException {
+        Path directory = Files.createTempDirectory("outbox");
+        try (LedgerOutbox outbox = new LedgerOutbox(directory, 256, false)) {
+            assertTrue(outbox.isEmpty());
+            for (int i = 0; i < 20; i++) {
+                outbox.append(record(i));
+            }
+            assertFalse(outbox.isEmpty());
+            assertTrue(outbox.getSegmentCount() > 1);
+
+            List<LedgerOutbox.Entry> first = outbox.read(15);
+            List<LedgerOutbox.Entry> second = outbox.read(15);
+            assertEquals(15, first.size());
+            assertEquals(5, second.size());
+            assertRecord(0, first.get(0).getRecord());
+            assertRecord(19, second.get(4).getRecord());
+
+            outbox.acknowledge(first.get(14).getPosition());
+            outbox.rewind();
+            assertRecord(15, outbox.read(1).get(0).getRecord());
+
+            outbox.acknowledge(second.get(4).getPosition());
+            assertTrue(outbox.isEmpty());
+            assertEquals(0, outbox.getPendingBytes());
+            assertEquals(1, outbox.getSegmentCount());
+        }
+    }
+
+    @Test
+    void pendingRecordsSurviveRestartAndTornTailIsCutOff() throws IOException {
+        Path directory = Files.createTempDirectory("outbox");
+        try (LedgerOutbox outbox = new LedgerOutbox(directory, 1 << 20, true)) {
+            for (int i = 0; i < 3; i++) {
+                outbox.append(record(i));
+            }
+            outbox.acknowledge(outbox.read(1).get(0).getPosition());
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.toString().endsWith(".wal")).findFirst().get();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (LedgerOutbox outbox = new LedgerOutbox(directory, 1 << 20, true)) {
+            List<LedgerOutbox.Entry> entries = outbox.read(10);
+            assertEquals(1, entries.size());
+            assertRecord(1, entries.get(0).getRecord());
+
+            outbox.append(record(3));
+            entries = outbox.read(10);
+            assertEquals(1, entries.size());
+            assertRecord(3, entries.get(0).getRecord());
+        }
+    }
+
+    @Test
+    void tornOrStaleCursorReplaysFromTheFirstSegment() throws IOException {
+        Path directory = Files.createTempDirectory("outbox");
+        try (LedgerOutbox outbox = new LedgerOutbox(directory, 256, true)) {
+            for (int i = 0; i < 20; i++) {
+                outbox.append(record(i));
+            }
+            outbox.acknowledge(outbox.read(1).get(0).getPosition());
+        }
+        Path cursor = directory.resolve("cursor");
+
+        Files.write(cursor, new byte[0]);
+        try (LedgerOutbox outbox = new LedgerOutbox(directory, 256, true)) {
+            assertRecord(0, outbox.read(1).get(0).getRecord());
+        }
+
+        Files.write(cursor, ByteBuffer.allocate(16).putLong(-1).putLong(0).array());
+        try (LedgerOutbox outbox = new LedgerOutbox(directory, 256, true)) {
+            assertRecord(0, outbox.read(1).get(0).getRecord());
+        }
+
+        Files.write(cursor, ByteBuffer.allocate(16).putLong(0).putLong(1 << 20).array());
+        try (LedgerOutbox outbox = new LedgerOutbox(directory, 256, true)) {
+            assertRecord(0, outbox.read(1).get(0).getRecord());
+        }
+    }
+
+    private static ProducerRecord<String, byte[]> record(int i) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>("msp-" + i, i % 2 == 0 ? null : "key-" + i,
+                ("{\"asset\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+        record.headers().add("wireFormat", "json".getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static void assertRecord(int i, ProducerRecord<String, byte[]> record) {
+        ProducerRecord<String, byte[]> expected = record(i);
+        assertEquals(expected.topic(), record.topic());
+        assertEquals(expected.key(), record.key());
+        assertArrayEquals(expected.value(), record.value());
+        assertArrayEquals(expected.headers().lastHeader("wireFormat").value(),
+                record.headers().lastHeader("wireFormat").value());
+    }
+}
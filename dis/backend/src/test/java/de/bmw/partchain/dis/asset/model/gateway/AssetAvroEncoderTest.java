@@ -0,0 +1,314 @@
+package de.bmw.partchain.dis.asset.model.gateway;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bmw.partchain.dis.asset.model.request.SerialNumberType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the encoder against {@code avro/Asset.avsc} with a decoder driven by the schema, so that the hand written
+ * field order can not silently drift from the schema or the {@link Asset} class.
+ */
+class AssetAvroEncoderTest {
+
+    private static final long CRC_64_AVRO_EMPTY = 0xc15d213aa4d7a795L;
+    private static final List<String> CANONICAL_ATTRIBUTES =
+            Arrays.asList("name", "type", "fields", "symbols", "items", "values");
+
+    private final AssetAvroEncoder encoder = new AssetAvroEncoder();
+
+    @Test
+    void headerHoldsMarkerAndFingerprintOfTheSchema() throws IOException {
+        byte[] encoded = encoder.encode(new Asset());
+
+        assertEquals(0xC3, encoded[0] & 0xff);
+        assertEquals(0x01, encoded[1] & 0xff);
+        long fingerprint = 0;
+        for (int i = 0; i < 8; i++) {
+            fingerprint |= (encoded[2 + i] & 0xffL) << (8 * i);
+        }
+        assertEquals(crc64Avro(schemaBytes()), fingerprint);
+        assertEquals(fingerprint, encoder.getSchemaFingerprint());
+    }
+
+    @Test
+    void schemaIsInParsingCanonicalForm() throws IOException {
+        byte[] schema = schemaBytes();
+        JsonNode node = new ObjectMapper().readTree(schema);
+
+        // The fingerprint is only the one of the schema if the file has no whitespace and the canonical attributes
+        assertEquals(new String(schema, StandardCharsets.UTF_8), new ObjectMapper().writeValueAsString(node));
+        assertCanonicalAttributes(node);
+    }
+
+    @Test
+    void encodesGoldenBytes() {
+        Asset asset = new Asset();
+        asset.setRequestProcessId("r");
+        asset.setRequestDate(new Date(1));
+        asset.setQualityStatus(AssetQualityStatus.NOK);
+        asset.setComponentsSerialNumbers(new LinkedHashSet<>());
+        asset.setMspId("m");
+        Map<String, String> customFields = new HashMap<>();
+        customFields.put("a", null);
+        asset.setCustomFields(customFields);
+
+        byte[] encoded = encoder.encode(asset);
+
+        byte[] expected = {
+                2, 2, 'r',              // requestProcessId
+                2, 2,                   // requestDate
+                0, 0, 0, 0, 0, 0, 0,    // manufacturer to serialNumberCustomer
+                2, 2,                   // qualityStatus
+                2, 0,                   // componentsSerialNumbers
+                0, 0,                   // status, productionDateGmt
+                2, 2, 'm',              // mspId
+                0, 0, 0,                // serialNumberType, manufacturerPlant, manufacturerLine
+                2, 2, 2, 'a', 0, 0,     // customFields
+                0                       // qualityDocuments
+        };
+        assertArrayEquals(expected, Arrays.copyOfRange(encoded, 10, encoded.length));
+    }
+
+    @Test
+    void roundTripsAllFields() throws Exception {
+        Asset asset = new Asset();
+        asset.setRequestProcessId("4f1a");
+        asset.setRequestDate(new Date(1612170000123L));
+        asset.setManufacturer("Manufacturer \u00e4");
+        asset.setProductionCountryCodeManufacturer("DE");
+        asset.setPartNameManufacturer("Door");
+        asset.setPartNumberManufacturer("M-1");
+        asset.setPartNumberCustomer("C-1");
+        asset.setSerialNumberManufacturer("SN-1");
+        asset.setSerialNumberCustomer("SC-1");
+        asset.setQualityStatus(AssetQualityStatus.OK);
+        asset.setComponentsSerialNumbers(new LinkedHashSet<>(Arrays.asList("SN-2", "SN-3")));
+        asset.setStatus("PRODUCED");
+        asset.setProductionDateGmt("2021-02-01T10:00:00Z");
+        asset.setMspId("MSP");
+        asset.setSerialNumberType(SerialNumberType.BATCH);
+        asset.setManufacturerPlant("Plant");
+        asset.setManufacturerLine("Line");
+        Map<String, String> customFields = new LinkedHashMap<>();
+        customFields.put("color", "red");
+        customFields.put("size", null);
+        asset.setCustomFields(customFields);
+        asset.setQualityDocuments(new LinkedHashMap<>());
+
+        assertEquals(fieldValues(asset), decode(encoder.encode(asset)));
+        assertEquals(fieldValues(new Asset()), decode(encoder.encode(new Asset())));
+    }
+
+    @Test
+    void assetFieldsMatchTheSchema() throws IOException {
+        JsonNode schemaFields = schema().get("fields");
+        List<Field> assetFields = assetFields();
+
+        assertEquals(assetFields.stream().map(Field::getName).collect(Collectors.toList()),
+                names(schemaFields.elements()));
+        for (int i = 0; i < assetFields.size(); i++) {
+            Class<?> type = assetFields.get(i).getType();
+            JsonNode union = schemaFields.get(i).get("type");
+            assertEquals("null", union.get(0).asText(), assetFields.get(i).getName());
+            JsonNode valueType = union.get(1);
+            String avroType = valueType.isTextual() ? valueType.asText() : valueType.get("type").asText();
+
+            if (type == String.class) {
+                assertEquals("string", avroType);
+            } else if (type == Date.class) {
+                assertEquals("long", avroType);
+            } else if (type.isEnum()) {
+                assertEquals("enum", avroType);
+                assertEquals(type.getName(), valueType.get("name").asText());
+                assertEquals(Arrays.stream(type.getEnumConstants()).map(constant -> ((Enum<?>) constant).name())
+                        .collect(Collectors.toList()), texts(valueType.get("symbols").elements()));
+            } else if (Collection.class.isAssignableFrom(type)) {
+                assertEquals("array", avroType);
+            } else if (Map.class.isAssignableFrom(type)) {
+                assertEquals("map", avroType);
+            } else {
+                fail("Type of " + assetFields.get(i).getName() + " has no Avro mapping");
+            }
+        }
+    }
+
+    private static Map<String, Object> fieldValues(Asset asset) throws IllegalAccessException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Field field : assetFields()) {
+            field.setAccessible(true);
+            Object value = field.get(asset);
+            if (value instanceof Date) {
+                value = ((Date) value).getTime();
+            } else if (value instanceof Enum) {
+                value = ((Enum<?>) value).name();
+            } else if (value instanceof Collection) {
+                value = new ArrayList<>((Collection<?>) value);
+            }
+            values.put(field.getName(), value);
+        }
+        return values;
+    }
+
+    private static List<Field> assetFields() {
+        return Arrays.stream(Asset.class.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()) && !field.isSynthetic())
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> decode(byte[] encoded) throws IOException {
+        Decoder decoder = new Decoder(encoded, 10);
+        Map<String, Object> record = new LinkedHashMap<>();
+        for (JsonNode field : schema().get("fields")) {
+            record.put(field.get("name").asText(), decoder.read(field.get("type")));
+        }
+        assertEquals(encoded.length, decoder.position);
+        return record;
+    }
+
+    private static void assertCanonicalAttributes(JsonNode node) {
+        if (node.isObject()) {
+            List<String> attributes = names(node.fieldNames());
+            List<String> canonical = new ArrayList<>(CANONICAL_ATTRIBUTES);
+            canonical.retainAll(attributes);
+            assertEquals(canonical, attributes);
+        }
+        node.elements().forEachRemaining(AssetAvroEncoderTest::assertCanonicalAttributes);
+    }
+
+    private static List<String> names(Iterator<?> iterator) {
+        List<String> names = new ArrayList<>();
+        iterator.forEachRemaining(element ->
+                names.add(element instanceof JsonNode ? ((JsonNode) element).get("name").asText() : (String) element));
+        return names;
+    }
+
+    private static List<String> texts(Iterator<JsonNode> iterator) {
+        List<String> texts = new ArrayList<>();
+        iterator.forEachRemaining(element -> texts.add(element.asText()));
+        return texts;
+    }
+
+    private static JsonNode schema() throws IOException {
+        return new ObjectMapper().readTree(schemaBytes());
+    }
+
+    private static byte[] schemaBytes() throws IOException {
+        try (InputStream schema = AssetAvroEncoderTest.class.getResourceAsStream(AssetAvroEncoder.SCHEMA_RESOURCE)) {
+            byte[] bytes = new byte[0];
+            byte[] chunk = new byte[4096];
+            for (int read = schema.read(chunk); read >= 0; read = schema.read(chunk)) {
+                bytes = Arrays.copyOf(bytes, bytes.length + read);
+                System.arraycopy(chunk, 0, bytes, bytes.length - read, read);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Bitwise CRC-64-AVRO as given in the Avro specification.
+     */
+    private static long crc64Avro(byte[] data) {
+        long fingerprint = CRC_64_AVRO_EMPTY;
+        for (byte b : data) {
+            fingerprint ^= b & 0xff;
+            for (int i = 0; i < 8; i++) {
+                fingerprint = (fingerprint >>> 1) ^ (CRC_64_AVRO_EMPTY & -(fingerprint & 1L));
+            }
+        }
+        return fingerprint;
+    }
+
+    private static final class Decoder {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Decoder(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private Object read(JsonNode type) {
+            if (type.isArray()) {
+                return read(type.get((int) readLong()));
+            }
+            switch (type.isTextual() ? type.asText() : type.get("type").asText()) {
+                case "null":
+                    return null;
+                case "string":
+                    return readString();
+                case "long":
+                    return readLong();
+                case "enum":
+                    return type.get("symbols").get((int) readLong()).asText();
+                case "array":
+                    List<Object> items = new ArrayList<>();
+                    for (long count = readBlockCount(); count != 0; count = readBlockCount()) {
+                        for (long i = 0; i < count; i++) {
+                            items.add(read(type.get("items")));
+                        }
+                    }
+                    return items;
+                case "map":
+                    Map<String, Object> entries = new LinkedHashMap<>();
+                    for (long count = readBlockCount(); count != 0; count = readBlockCount()) {
+                        for (long i = 0; i < count; i++) {
+                            entries.put(readString(), read(type.get("values")));
+                        }
+                    }
+                    return entries;
+                default:
+                    throw new AssertionError("Unexpected type " + type);
+            }
+        }
+
+        private long readBlockCount() {
+            long count = readLong();
+            if (count < 0) {
+                // A negative count is followed by the size of the block in bytes
+                readLong();
+                return -count;
+            }
+            return count;
+        }
+
+        private long readLong() {
+            long zigZag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                zigZag |= (b & 0x7FL) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+
+        private String readString() {
+            int length = (int) readLong();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -1,9 +1,94 @@
 package de.bmw.partchain.dis.asset.model.request;
 
+import de.bmw.partchain.dis.asset.validator.CatenaXAssetRequestValidator;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CatenaXAssetRequestDtoTest {
 
+    private final Validator beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final CatenaXAssetRequestValidator assetValidator = new CatenaXAssetRequestValidator();
+
+    @Test
+    void validAssetHasNoViolations() {
+        List<String> violations = assetValidator.validate(validAsset());
+
+        assertTrue(violations.isEmpty());
+        assertSame(Collections.emptyList(), violations);
+    }
+
+    @Test
+    void missingSectionsAreNotValidated() {
+        assertSameViolations(new CatenaXAssetRequestDto());
+    }
+
+    @Test
+    void mandatoryPropertiesAreReported() {
+        assertSameViolations(asset(a -> a.setStaticData(new StaticDataDto())));
+        assertSameViolations(asset(a -> a.setUniqueData(new UniqueDataDto())));
+        assertSameViolations(asset(a -> a.setIndividualData(new IndividualDataDto())));
+        assertSameViolations(asset(a -> {
+            a.setStaticData(new StaticDataDto());
+            a.setUniqueData(new UniqueDataDto());
+            a.setIndividualData(new IndividualDataDto());
+        }));
+    }
+
+    @Test
+    void invalidFormatsAreReported() {
+        assertSameViolations(asset(a -> a.getIndividualData().setProductionCountryCode("de")));
+        assertSameViolations(asset(a -> a.getIndividualData().setProductionCountryCode("XX")));
+        assertSameViolations(asset(a -> a.getIndividualData().setProductionDateGMT("2021-02-30T10:00:00Z")));
+        assertSameViolations(asset(a -> a.getIndividualData().setProductionDateGMT("2021-02-01T10:00:00")));
+        assertSameViolations(asset(a -> a.getIndividualData().setProductionDateGMT("")));
+    }
+
+    private void assertSameViolations(CatenaXAssetRequestDto asset) {
+        List<String> expected = beanValidator.validate(asset).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+        List<String> actual = new ArrayList<>(assetValidator.validate(asset));
+        Collections.sort(actual);
+
+        assertEquals(expected, actual);
+    }
+
+    private static CatenaXAssetRequestDto asset(Consumer<CatenaXAssetRequestDto> customizer) {
+        CatenaXAssetRequestDto asset = validAsset();
+        customizer.accept(asset);
+        return asset;
+    }
+
+    private static CatenaXAssetRequestDto validAsset() {
+        StaticDataDto staticData = new StaticDataDto();
+        staticData.setManufacturerOneID("CAXSWPFTJQEVZNZZ");
+        staticData.setPartNumberCustomer("A-1");
+        staticData.setPartNameManufacturer("Door");
+        staticData.setPartNumberManufacturer("M-1");
+
+        UniqueDataDto uniqueData = new UniqueDataDto();
+        uniqueData.setManufacturerUniqueID("SN-1");
+        uniqueData.setUniqueID("U-1");
 
+        IndividualDataDto individualData = new IndividualDataDto();
+        individualData.setProductionCountryCode("DE");
+        individualData.setProductionDateGMT("2021-02-01T10:00:00+01:00");
 
-}
\ No newline at end of file
+        CatenaXAssetRequestDto asset = new CatenaXAssetRequestDto();
+        asset.setStaticData(staticData);
+        asset.setUniqueData(uniqueData);
+        asset.setIndividualData(individualData);
+        return asset;
+    }
+}
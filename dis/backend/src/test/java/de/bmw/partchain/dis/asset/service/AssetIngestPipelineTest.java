@@ -0,0 +1,193 @@
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.gateway.LedgerTransaction;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.request.IndividualDataDto;
+import de.bmw.partchain.dis.asset.model.request.UniqueDataDto;
+import de.bmw.partchain.dis.asset.model.response.AssetFailType;
+import de.bmw.partchain.dis.asset.model.response.AssetFailedReportResponseDto;
+import de.bmw.partchain.dis.asset.model.response.SentToLedgerResponseDto;
+import de.bmw.partchain.dis.asset.service.cdq.bpn.BusinessPartnerNames;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetIngestPipelineTest {
+
+    private final RecordingIngestService ingestService = new RecordingIngestService();
+    private final RecordingTransaction transaction = new RecordingTransaction();
+    private final SentToLedgerResponseDto responseDto = new SentToLedgerResponseDto();
+
+    @Test
+    void committedTransactionPublishesAssetsAndFailures() {
+        AssetIngestPipeline pipeline = transactionalPipeline();
+        pipeline.submit(0, new CatenaXAssetRequestDto());
+        pipeline.fail(1, AssetFailType.VALIDATION, Collections.singletonList("invalid"));
+        pipeline.submit(2, new CatenaXAssetRequestDto());
+
+        SentToLedgerResponseDto result = pipeline.complete();
+
+        assertEquals(Arrays.asList(0, 2), result.getProcessedAssets());
+        assertEquals(1, result.getFailedAssets().size());
+        assertEquals(2, transaction.committed.size());
+        assertEquals(Collections.singletonList(true), ingestService.failuresPublishedInTransaction);
+        assertEquals(1, transaction.afterCommitRuns);
+    }
+
+    @Test
+    void abortedTransactionFailsProcessedAssets() {
+        transaction.abort = true;
+        AssetIngestPipeline pipeline = transactionalPipeline();
+        pipeline.submit(0, new CatenaXAssetRequestDto());
+        pipeline.fail(1, AssetFailType.VALIDATION, Collections.singletonList("invalid"));
+        pipeline.submit(2, new CatenaXAssetRequestDto());
+
+        SentToLedgerResponseDto result = pipeline.complete();
+
+        assertTrue(result.getProcessedAssets().isEmpty());
+        List<AssetFailedReportResponseDto> failed = result.getFailedAssets();
+        assertEquals(3, failed.size());
+        assertEquals(0, failed.get(0).getIndex());
+        assertEquals(Collections.singletonList("Ledger transaction aborted: broker unavailable"),
+                failed.get(0).getFailReasons());
+        assertEquals(AssetFailType.VALIDATION, failed.get(1).getFailType());
+        assertEquals(2, failed.get(2).getIndex());
+        assertTrue(transaction.committed.isEmpty());
+        // The report published within the aborted transaction is published again on its own
+        assertEquals(Arrays.asList(true, false), ingestService.failuresPublishedInTransaction);
+        assertEquals(0, transaction.afterCommitRuns);
+    }
+
+    @Test
+    void failuresOfAnIndexedRequestDoNotSplitTheBatch() {
+        List<CatenaXAssetRequestDto> assets = Arrays.asList(asset("SN-1", "2021-01-01T00:00:00Z"),
+                asset("SN-2", "2021-01-01T00:00:00Z"), asset("SN-1", "2021-02-01T00:00:00Z"),
+                asset("SN-3", "2021-01-01T00:00:00Z"));
+        AssetIngestPipeline pipeline = pipeline();
+        pipeline.indexRequest(assets);
+        for (int index : pipeline.submissionOrder()) {
+            pipeline.submit(index, assets.get(index));
+        }
+        assertTrue(ingestService.ingested.isEmpty());
+
+        SentToLedgerResponseDto result = pipeline.complete();
+
+        assertEquals(Arrays.asList(1, 3), ingestService.ingested);
+        assertEquals(Arrays.asList(1, 3), result.getProcessedAssets());
+        assertEquals(2, result.getFailedAssets().size());
+        assertEquals(0, result.getFailedAssets().get(0).getIndex());
+        assertEquals(2, result.getFailedAssets().get(1).getIndex());
+    }
+
+    @Test
+    void failureOfAStreamKeepsTheOrderOfTheAssetsBeforeIt() {
+        AssetIngestPipeline pipeline = pipeline();
+        pipeline.submit(0, new CatenaXAssetRequestDto());
+        pipeline.fail(1, AssetFailType.VALIDATION, Collections.singletonList("invalid"));
+
+        assertEquals(Collections.singletonList(0), ingestService.ingested);
+        assertEquals(Collections.singletonList(0), pipeline.complete().getProcessedAssets());
+    }
+
+    private AssetIngestPipeline pipeline() {
+        return new AssetIngestPipeline(ingestService, Runnable::run, responseDto,
+                new BusinessPartnerNames(null, false), null, null, false, 16, 16);
+    }
+
+    private static CatenaXAssetRequestDto asset(String serialNumber, String productionDate) {
+        UniqueDataDto uniqueData = new UniqueDataDto();
+        uniqueData.setManufacturerUniqueID(serialNumber);
+        IndividualDataDto individualData = new IndividualDataDto();
+        individualData.setProductionDateGMT(productionDate);
+        CatenaXAssetRequestDto asset = new CatenaXAssetRequestDto();
+        asset.setUniqueData(uniqueData);
+        asset.setIndividualData(individualData);
+        return asset;
+    }
+
+    private AssetIngestPipeline transactionalPipeline() {
+        return new AssetIngestPipeline(ingestService, Runnable::run, responseDto,
+                new BusinessPartnerNames(null, false), transaction, null, false, 16, 16);
+    }
+
+    /**
+     * Adds every asset to the transaction like the real service and defers an action until the commit.
+     */
+    private final class RecordingIngestService extends AssetIngestService {
+
+        private final List<Boolean> failuresPublishedInTransaction = new ArrayList<>();
+        private final List<Integer> ingested = new ArrayList<>();
+
+        private RecordingIngestService() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public CompletableFuture<Optional<AssetFailedReportResponseDto>> ingest(int index, CatenaXAssetRequestDto asset,
+                String requestProcessId, BusinessPartnerNames businessPartnerNames, LedgerTransaction transaction) {
+            ingested.add(index);
+            if (transaction == null) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            transaction.sendToLedger(new Asset());
+            if (index == 0) {
+                transaction.afterCommit(() -> AssetIngestPipelineTest.this.transaction.afterCommitRuns++);
+            }
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        @Override
+        public void publishFailedAssets(SentToLedgerResponseDto responseDto) {
+            failuresPublishedInTransaction.add(transaction.inTransaction);
+        }
+    }
+
+    private static final class RecordingTransaction implements LedgerTransaction {
+
+        private final List<Asset> buffered = new ArrayList<>();
+        private final List<Asset> committed = new ArrayList<>();
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private boolean abort;
+        private boolean inTransaction;
+        private int afterCommitRuns;
+
+        @Override
+        public CompletableFuture<Void> sendToLedger(Asset asset) {
+            buffered.add(asset);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public LedgerTransaction beginTransaction() {
+            throw new IllegalStateException("Ledger transactions can not be nested");
+        }
+
+        @Override
+        public void commit(Runnable inTransaction) {
+            this.inTransaction = true;
+            try {
+                inTransaction.run();
+                if (abort) {
+                    throw new IllegalStateException("broker unavailable");
+                }
+                committed.addAll(buffered);
+            } finally {
+                this.inTransaction = false;
+            }
+            afterCommit.forEach(Runnable::run);
+        }
+
+        @Override
+        public void afterCommit(Runnable action) {
+            afterCommit.add(action);
+        }
+    }
+}
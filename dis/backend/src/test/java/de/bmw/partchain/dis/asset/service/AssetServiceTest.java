@@ -0,0 +1,106 @@
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.gateway.AssetGateway;
+import de.bmw.partchain.dis.asset.gateway.LedgerTransaction;
+import de.bmw.partchain.dis.asset.mapper.AssetMapper;
+import de.bmw.partchain.dis.asset.model.gateway.Asset;
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.request.IndividualDataDto;
+import de.bmw.partchain.dis.asset.model.request.StaticDataDto;
+import de.bmw.partchain.dis.asset.service.cdq.bpn.BusinessPartnerNames;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetServiceTest {
+
+    private final RecordingEnrichmentService enrichmentService = new RecordingEnrichmentService();
+    private final CompletableFuture<Void> sent = new CompletableFuture<>();
+    private final AssetService assetService = new AssetService(new FutureGateway(sent), new PlainAssetMapper(), null,
+            enrichmentService);
+
+    @Test
+    void deferredEnrichmentIsScheduledOnceTheLedgerAcknowledgedTheAsset() {
+        CompletableFuture<Void> result = assetService.sendToLedger(asset(), "process",
+                new BusinessPartnerNames(null, false));
+        assertTrue(enrichmentService.serialNumbers.isEmpty());
+
+        sent.complete(null);
+
+        assertTrue(result.isDone());
+        assertFalse(result.isCompletedExceptionally());
+        assertEquals(1, enrichmentService.serialNumbers.size());
+        assertEquals("serial", enrichmentService.serialNumbers.get(0));
+    }
+
+    @Test
+    void failedSendPublishesNoEnrichmentPatch() {
+        CompletableFuture<Void> result = assetService.sendToLedger(asset(), "process",
+                new BusinessPartnerNames(null, false));
+
+        sent.completeExceptionally(new IllegalStateException("record too large"));
+
+        assertTrue(result.isCompletedExceptionally());
+        assertTrue(enrichmentService.serialNumbers.isEmpty());
+    }
+
+    private static CatenaXAssetRequestDto asset() {
+        StaticDataDto staticData = new StaticDataDto();
+        staticData.setManufacturerOneID("CAXSWPFTJQEVZNZZ");
+        IndividualDataDto individualData = new IndividualDataDto();
+        individualData.setProductionCountryCode("DE");
+        CatenaXAssetRequestDto asset = new CatenaXAssetRequestDto();
+        asset.setStaticData(staticData);
+        asset.setIndividualData(individualData);
+        return asset;
+    }
+
+    private static final class RecordingEnrichmentService extends AssetEnrichmentService {
+
+        private final List<String> serialNumbers = new ArrayList<>();
+
+        private RecordingEnrichmentService() {
+            super(null, null, null, DEFERRED_MODE);
+        }
+
+        @Override
+        public void enrichLater(String requestProcessId, String mspId, String serialNumberManufacturer,
+                                Map<String, String> businessPartnerOneIds, String countryCode) {
+            serialNumbers.add(serialNumberManufacturer);
+        }
+    }
+
+    private static final class PlainAssetMapper extends AssetMapper {
+
+        @Override
+        public Asset mapFrom(CatenaXAssetRequestDto dto) {
+            Asset asset = new Asset();
+            asset.setSerialNumberManufacturer("serial");
+            return asset;
+        }
+    }
+
+    private static final class FutureGateway implements AssetGateway {
+
+        private final CompletableFuture<Void> sent;
+
+        private FutureGateway(CompletableFuture<Void> sent) {
+            this.sent = sent;
+        }
+
+        @Override
+        public CompletableFuture<Void> sendToLedger(Asset asset) {
+            return sent;
+        }
+
+        @Override
+        public LedgerTransaction beginTransaction() {
+            throw new IllegalStateException("Ledger transactions are not enabled");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package de.bmw.partchain.dis.asset.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetStreamReaderTest {
+
+    private final AssetStreamReader reader = new AssetStreamReader(new ObjectMapper());
+    private final List<String> serialNumbers = new ArrayList<>();
+    private final List<Integer> indexes = new ArrayList<>();
+
+    @Test
+    void readsAssetsOfAJsonArray() throws IOException {
+        int count = read("[" + asset("SN-1") + ", " + asset("SN-2") + "]");
+
+        assertEquals(2, count);
+        assertEquals(Arrays.asList("SN-1", "SN-2"), serialNumbers);
+        assertEquals(Arrays.asList(0, 1), indexes);
+    }
+
+    @Test
+    void readsNewlineDelimitedAssets() throws IOException {
+        int count = read(asset("SN-1") + "\n" + asset("SN-2") + "\n" + asset("SN-3") + "\n");
+
+        assertEquals(3, count);
+        assertEquals(Arrays.asList("SN-1", "SN-2", "SN-3"), serialNumbers);
+        assertEquals(Arrays.asList(0, 1, 2), indexes);
+    }
+
+    @Test
+    void emptyArrayHasNoAssets() throws IOException {
+        assertEquals(0, read("[]"));
+        assertTrue(serialNumbers.isEmpty());
+    }
+
+    @Test
+    void elementWhichIsNotAnObjectFailsAtItsIndex() {
+        AssetStreamReadException exception = assertThrows(AssetStreamReadException.class,
+                () -> read("[" + asset("SN-1") + ", 42, " + asset("SN-3") + "]"));
+
+        assertEquals(1, exception.getIndex());
+        assertEquals("Expected an asset object but found VALUE_NUMBER_INT", exception.getMessage());
+        assertEquals(Arrays.asList("SN-1"), serialNumbers);
+    }
+
+    @Test
+    void malformedJsonFailsAtTheIndexOfTheAssetBeingRead() {
+        AssetStreamReadException exception = assertThrows(AssetStreamReadException.class,
+                () -> read("[" + asset("SN-1") + ", " + asset("SN-2") + ", {\"uniqueData\": {]"));
+
+        assertEquals(2, exception.getIndex());
+        assertEquals(Arrays.asList("SN-1", "SN-2"), serialNumbers);
+    }
+
+    @Test
+    void truncatedStreamFailsAtTheIndexOfTheMissingAsset() {
+        AssetStreamReadException exception = assertThrows(AssetStreamReadException.class,
+                () -> read("[" + asset("SN-1") + ", "));
+
+        assertEquals(1, exception.getIndex());
+    }
+
+    private int read(String json) throws IOException {
+        return reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                (CatenaXAssetRequestDto asset, int index) -> {
+                    serialNumbers.add(asset.getUniqueData().getManufacturerUniqueID());
+                    indexes.add(index);
+                });
+    }
+
+    private static String asset(String serialNumber) {
+        return "{\"uniqueData\": {\"manufacturerUniqueID\": \"" + serialNumber + "\", \"uniqueID\": \"U-"
+                + serialNumber + "\"}}";
+    }
+}
@@ -0,0 +1,126 @@
+package de.bmw.partchain.dis.asset.service;
+
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import de.bmw.partchain.dis.asset.model.request.IndividualDataDto;
+import de.bmw.partchain.dis.asset.model.request.TreeDto;
+import de.bmw.partchain.dis.asset.model.request.UniqueDataDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkAssetIndexTest {
+
+    @Test
+    void exactCopiesAreDuplicatesOfTheFirstAsset() {
+        BulkAssetIndex index = BulkAssetIndex.of(Arrays.asList(
+                asset("SN-1", "2021-01-01T00:00:00Z"),
+                asset("SN-2", "2021-01-01T00:00:00Z"),
+                asset("SN-1", "2021-01-01T00:00:00Z"),
+                asset("SN-1", "2021-01-01T00:00:00Z")));
+
+        assertFalse(index.isDuplicate(0));
+        assertFalse(index.isDuplicate(1));
+        assertTrue(index.isDuplicate(2));
+        assertTrue(index.isDuplicate(3));
+        assertFalse(index.isConflicting(0));
+        assertFalse(index.isConflicting(3));
+    }
+
+    @Test
+    void copiesWithDifferingContentConflict() {
+        BulkAssetIndex index = BulkAssetIndex.of(Arrays.asList(
+                asset("SN-1", "2021-01-01T00:00:00Z"),
+                asset("SN-1", "2021-01-01T00:00:00Z"),
+                asset("SN-2", "2021-01-01T00:00:00Z"),
+                asset("SN-1", "2021-02-01T00:00:00Z")));
+
+        for (int i : new int[]{0, 1, 3}) {
+            assertTrue(index.isConflicting(i));
+            assertFalse(index.isDuplicate(i));
+            assertEquals(Arrays.asList(0, 1, 3), index.groupIndexes(i));
+        }
+        assertFalse(index.isConflicting(2));
+    }
+
+    @Test
+    void assetsWithoutSerialNumberAreNotGrouped() {
+        List<CatenaXAssetRequestDto> assets = Arrays.asList(new CatenaXAssetRequestDto(), new CatenaXAssetRequestDto());
+        BulkAssetIndex index = BulkAssetIndex.of(assets);
+
+        assertFalse(index.isDuplicate(1));
+        assertFalse(index.isConflicting(1));
+    }
+
+    @Test
+    void childrenAreOrderedBeforeTheirParents() {
+        BulkAssetIndex index = BulkAssetIndex.of(Arrays.asList(
+                part("CAR", "DOOR", "ENGINE"),
+                part("DOOR", "HINGE"),
+                part("HINGE"),
+                part("ENGINE", "PISTON", "SENSOR-ON-LEDGER"),
+                part("PISTON")));
+
+        assertArrayEquals(new int[]{2, 4, 1, 3, 0}, index.topologicalOrder());
+        assertEquals(2, index.level(0));
+        assertEquals(1, index.level(3));
+        assertTrue(index.hasDanglingChildren(3));
+        assertFalse(index.hasDanglingChildren(0));
+        assertEquals(Collections.singletonList("SENSOR-ON-LEDGER"),
+                index.danglingChildren(part("ENGINE", "PISTON", "SENSOR-ON-LEDGER")));
+    }
+
+    @Test
+    void assetsOnOrAboveCyclesAreCyclic() {
+        BulkAssetIndex index = BulkAssetIndex.of(Arrays.asList(
+                part("A", "B"),
+                part("B", "C"),
+                part("C", "A"),
+                part("TOP", "A"),
+                part("SELF", "SELF"),
+                part("LEAF")));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(index.isCyclic(i));
+        }
+        assertFalse(index.isCyclic(5));
+    }
+
+    @Test
+    void deepAssemblyIsSortedInLinearTime() {
+        int size = 100_000;
+        List<CatenaXAssetRequestDto> assets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            assets.add(i + 1 < size ? part("N" + i, "N" + (i + 1)) : part("N" + i));
+        }
+        BulkAssetIndex index = BulkAssetIndex.of(assets);
+
+        int[] order = index.topologicalOrder();
+        assertEquals(size - 1, order[0]);
+        assertEquals(0, order[size - 1]);
+        assertEquals(size - 1, index.level(0));
+    }
+
+    private static CatenaXAssetRequestDto asset(String serialNumber, String productionDate) {
+        UniqueDataDto uniqueData = new UniqueDataDto();
+        uniqueData.setManufacturerUniqueID(serialNumber);
+        IndividualDataDto individualData = new IndividualDataDto();
+        individualData.setProductionDateGMT(productionDate);
+        CatenaXAssetRequestDto asset = new CatenaXAssetRequestDto();
+        asset.setUniqueData(uniqueData);
+        asset.setIndividualData(individualData);
+        return asset;
+    }
+
+    private static CatenaXAssetRequestDto part(String serialNumber, String... children) {
+        CatenaXAssetRequestDto asset = asset(serialNumber, "2021-01-01T00:00:00Z");
+        TreeDto partTree = new TreeDto();
+        partTree.setIsParentOf(Arrays.asList(children));
+        asset.setPartTree(partTree);
+        return asset;
+    }
+}
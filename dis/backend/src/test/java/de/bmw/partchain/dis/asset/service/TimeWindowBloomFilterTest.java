@@ -0,0 +1,55 @@
+package de.bmw.partchain.dis.asset.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeWindowBloomFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final TimeWindowBloomFilter filter = new TimeWindowBloomFilter(1 << 16, 7, 1000, now::get);
+
+    @Test
+    void elementsAreRememberedForAtLeastOneWindow() {
+        filter.add(1, 2);
+        assertTrue(filter.mightContain(1, 2));
+
+        now.set(1500);
+        assertTrue(filter.mightContain(1, 2));
+
+        now.set(2499);
+        assertTrue(filter.mightContain(1, 2));
+
+        now.set(2500);
+        assertFalse(filter.mightContain(1, 2));
+    }
+
+    @Test
+    void longGapForgetsAllElements() {
+        filter.add(1, 2);
+        now.set(900);
+        filter.add(3, 4);
+
+        now.set(2100);
+        assertFalse(filter.mightContain(1, 2));
+        assertFalse(filter.mightContain(3, 4));
+    }
+
+    @Test
+    void falsePositivesStayRare() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 5000; i++) {
+            filter.add(random.nextLong(), random.nextLong());
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(random.nextLong(), random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1000, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,72 @@
+package de.bmw.partchain.dis.asset.service.cdq.bpn;
+
+import de.bmw.partchain.dis.resilience.CallNotPermittedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BpnApiGuardTest {
+
+  private final BpnApiGuard guard = new BpnApiGuard(50, 4, 2, 30, 1, 1, 20);
+
+  @Test
+  void failedCallReleasesItsPermit() {
+    assertThrows(IllegalStateException.class, () -> guard.execute(() -> {
+      throw new IllegalStateException("CDQ unavailable");
+    }));
+
+    assertEquals(0, guard.getActiveCalls());
+    assertEquals(100f, guard.getFailureRate());
+    assertEquals("ok", guard.execute(() -> "ok"));
+    assertEquals(50f, guard.getFailureRate());
+  }
+
+  @Test
+  void callRejectedByTheFullBulkheadIsNotRecordedAsFailure() throws InterruptedException {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread blocking = new Thread(() -> guard.execute(() -> {
+      running.countDown();
+      await(release);
+      return "slow";
+    }));
+    blocking.start();
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    assertThrows(CallNotPermittedException.class, () -> guard.execute(() -> "rejected"));
+    assertEquals(1, guard.getBulkheadRejectionCount());
+    assertEquals(0f, guard.getFailureRate());
+
+    release.countDown();
+    blocking.join(5000);
+    assertEquals(0, guard.getActiveCalls());
+    assertEquals("ok", guard.execute(() -> "ok"));
+  }
+
+  @Test
+  void openCircuitBreakerRejectsWithoutCalling() {
+    for (int i = 0; i < 2; i++) {
+      assertThrows(IllegalStateException.class, () -> guard.execute(() -> {
+        throw new IllegalStateException("CDQ unavailable");
+      }));
+    }
+    assertEquals("OPEN", guard.getCircuitBreakerState());
+
+    assertThrows(CallNotPermittedException.class, () -> guard.execute(() -> {
+      throw new AssertionError("must not be called");
+    }));
+    assertEquals(1, guard.getCircuitBreakerRejectionCount());
+    assertEquals(0, guard.getActiveCalls());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
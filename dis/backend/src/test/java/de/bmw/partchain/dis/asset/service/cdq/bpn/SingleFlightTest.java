@@ -0,0 +1,101 @@
+package de.bmw.partchain.dis.asset.service.cdq.bpn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+  private final CountDownLatch running = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Test
+  void concurrentCallersShareTheResultOfTheRunningCall() throws Exception {
+    SingleFlight<String> singleFlight = new SingleFlight<>(5000);
+    CompletableFuture<String> first = CompletableFuture.supplyAsync(
+      () -> singleFlight.execute("key", () -> blockingCall("result"), "fallback"));
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<String> second = CompletableFuture.supplyAsync(
+      () -> singleFlight.execute("key", () -> blockingCall("second call"), "fallback"));
+    awaitCoalesced(singleFlight, 1);
+    release.countDown();
+
+    assertEquals("result", first.get(5, TimeUnit.SECONDS));
+    assertEquals("result", second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, calls.get());
+    assertEquals(0, singleFlight.getInFlightCount());
+  }
+
+  @Test
+  void callsForOtherKeysAreNotCoalesced() {
+    SingleFlight<String> singleFlight = new SingleFlight<>(5000);
+
+    assertEquals("a", singleFlight.execute("a", () -> "a", "fallback"));
+    assertEquals("b", singleFlight.execute("b", () -> "b", "fallback"));
+    assertEquals("a", singleFlight.execute("a", () -> "a", "fallback"));
+    assertEquals(0, singleFlight.getCoalescedCount());
+  }
+
+  @Test
+  void failureIsThrownToTheCallerAndWaitingCallersGetTheFallback() throws Exception {
+    SingleFlight<String> singleFlight = new SingleFlight<>(5000);
+    CompletableFuture<String> first = CompletableFuture.supplyAsync(
+      () -> singleFlight.execute("key", () -> {
+        blockingCall("result");
+        throw new IllegalStateException("CDQ unavailable");
+      }, "fallback"));
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<String> second = CompletableFuture.supplyAsync(
+      () -> singleFlight.execute("key", () -> "second call", "fallback"));
+    awaitCoalesced(singleFlight, 1);
+    release.countDown();
+
+    assertEquals("fallback", second.get(5, TimeUnit.SECONDS));
+    Exception exception = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+    assertTrue(exception.getCause() instanceof IllegalStateException);
+    // The failed call is not remembered
+    assertEquals("retried", singleFlight.execute("key", () -> "retried", "fallback"));
+  }
+
+  @Test
+  void waitingCallerGetsTheFallbackAfterTheWaitTime() throws Exception {
+    SingleFlight<String> singleFlight = new SingleFlight<>(20);
+    CompletableFuture<String> first = CompletableFuture.supplyAsync(
+      () -> singleFlight.execute("key", () -> blockingCall("result"), "fallback"));
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    assertEquals("fallback", singleFlight.execute("key", () -> "second call", "fallback"));
+    assertEquals(1, singleFlight.getCoalescedCount());
+
+    release.countDown();
+    assertEquals("result", first.get(5, TimeUnit.SECONDS));
+    assertEquals(1, calls.get());
+  }
+
+  private String blockingCall(String result) {
+    calls.incrementAndGet();
+    running.countDown();
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return result;
+  }
+
+  private static void awaitCoalesced(SingleFlight<?> singleFlight, long count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (singleFlight.getCoalescedCount() < count && System.currentTimeMillis() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(5);
+    }
+    assertEquals(count, singleFlight.getCoalescedCount());
+  }
+}
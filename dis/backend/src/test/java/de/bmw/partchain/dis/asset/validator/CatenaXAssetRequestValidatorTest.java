@@ -0,0 +1,69 @@
+package de.bmw.partchain.dis.asset.validator;
+
+import de.bmw.partchain.dis.asset.model.request.CatenaXAssetRequestDto;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatenaXAssetRequestValidatorTest {
+
+    @Test
+    void allConstraintsOfTheAssetRequestAreChecked() {
+        new CatenaXAssetRequestValidator();
+
+        assertFalse(CatenaXAssetRequestValidator.uncheckedConstraints(CatenaXAssetRequestDto.class,
+                Collections.emptySet()).isEmpty());
+    }
+
+    @Test
+    void constraintsOfTheSectionsNotCheckedAreReported() {
+        Set<String> checked = new HashSet<>(Arrays.asList(
+                CatenaXAssetRequestValidator.constraintKey(Section.class, "checked", NotNull.class),
+                CatenaXAssetRequestValidator.constraintKey(Request.class, "id", NotNull.class)));
+
+        List<String> unchecked = CatenaXAssetRequestValidator.uncheckedConstraints(Request.class, checked);
+        Collections.sort(unchecked);
+
+        assertEquals(Arrays.asList("Nested.value@NotNull", "Section.added@Size", "Section.repeated@Size",
+                "Section.repeated@Size"), unchecked);
+    }
+
+    private static final class Request {
+        @NotNull
+        private String id;
+
+        @Valid
+        private Section section;
+
+        private Nested notCascaded;
+    }
+
+    private static final class Section {
+        @NotNull
+        private String checked;
+
+        @Size(max = 10)
+        private String added;
+
+        @Size(min = 1)
+        @Size(max = 10)
+        private String repeated;
+
+        @Valid
+        private Nested nested;
+    }
+
+    private static final class Nested {
+        @NotNull
+        private String value;
+    }
+}
@@ -0,0 +1,178 @@
+package de.bmw.partchain.dis.asset.validator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the country code validator with the Locale based implementation it replaces, and the date validator with
+ * the grammar it documents, independent of how the running JDK parses offsets. On Java 8, whose offset grammar the
+ * validator follows, the date validator is also compared with the DateTimeFormatter based implementation it replaces.
+ */
+class ConstraintValidatorsTest {
+
+    private static final String[] VALID_DATES = {
+            "2021-02-01T10:00:00Z", "2021-02-01t10:00:00z", "2021-02-01T10:00Z", "2021-02-01T10:00:00.Z",
+            "2021-02-01T10:00:00.123456789Z", "2021-02-01T10:00:00+01:00", "2021-02-01T10:00:00+01:00:30",
+            "2021-02-01T10:00:00-18:00", "2020-02-29T10:00:00Z", "2000-02-29T10:00:00Z", "+20210-02-01T10:00:00Z",
+            "-2021-02-01T10:00:00Z", "-0004-02-29T10:00:00Z", "+999999999-12-31T23:59:59Z",
+            "+0999999999-01-01T00:00:00Z", "-999999999-01-01T00:00:00+18:00"
+    };
+
+    private static final String[] INVALID_DATES = {
+            "2021-02-01T10:00:00.1234567890Z", "2021-02-01T10:00:00+01", "2021-02-01T10:00:00+0100",
+            "2021-02-01T10:00:00+01:60", "2021-02-01T10:00:00+01:", "2021-02-01T10:00:00+01:00:",
+            "2021-02-01T10:00:00+18:00:01", "2021-02-01T10:00:00+19:00", "2021-02-01T10:00:00+24:00",
+            "2021-02-01T10:00:00+60:00", "2021-02-01T10:00:00", "2021-02-01 10:00:00Z", "2021-02-01T24:00:00Z",
+            "2021-02-01T23:59:60Z", "2021-02-01T10:0:00Z", "2021-02-01T10:00:0Z", "2021-2-01T10:00:00Z",
+            "2021-02-29T10:00:00Z", "1900-02-29T10:00:00Z", "2021-04-31T10:00:00Z", "2021-13-01T10:00:00Z",
+            "2021-00-01T10:00:00Z", "2021-01-00T10:00:00Z", "+2021-02-01T10:00:00Z", "20210-02-01T10:00:00Z",
+            "-0000-02-01T10:00:00Z", "+1000000000-01-01T00:00:00Z", "+99999999999-01-01T00:00:00Z",
+            "202-02-01T10:00:00Z", "", "Z", "T", "2021-02-01T10:00:00ZZ", "2021-02-01T10:00:00+01:00Z",
+            "\uFF12\uFF10\uFF12\uFF11-02-01T10:00:00Z", "2021-02-01T10:00:00,5Z"
+    };
+
+    /**
+     * The grammar documented on {@link DateGmtValidator}, the calendar fields are checked separately.
+     */
+    private static final Pattern DATE_GRAMMAR = Pattern.compile(
+            "(\\d{4}|\\+\\d{5,10}|-\\d{4,10})-(\\d{2})-(\\d{2})"
+                    + "[Tt](\\d{2}):(\\d{2})(?::(\\d{2})(?:\\.\\d{0,9})?)?"
+                    + "(?:[Zz]|[+-](\\d{2}):(\\d{2})(?::(\\d{2}))?)");
+
+    private static final String ALPHABET = "0123456789+-:.TtZz ";
+
+    @Test
+    void countryCodesMatchLocale() {
+        Set<String> isoCountries = Arrays.stream(Locale.getISOCountries()).collect(Collectors.toSet());
+        CountryCodeValidator validator = new CountryCodeValidator();
+
+        for (char first = 0; first < 128; first++) {
+            for (char second = 0; second < 128; second++) {
+                String countryCode = new String(new char[]{first, second});
+                assertEquals(isoCountries.contains(countryCode), validator.isValid(countryCode, null), countryCode);
+            }
+        }
+        assertFalse(validator.isValid(null, null));
+        assertFalse(validator.isValid("D", null));
+        assertFalse(validator.isValid("DEU", null));
+    }
+
+    @Test
+    void datesFollowTheGrammar() {
+        DateGmtValidator validator = new DateGmtValidator();
+
+        for (String date : VALID_DATES) {
+            assertTrue(validator.isValid(date, null), date);
+            assertTrue(matchesGrammar(date), date);
+        }
+        for (String date : INVALID_DATES) {
+            assertFalse(validator.isValid(date, null), date);
+            assertFalse(matchesGrammar(date), date);
+        }
+        assertFalse(validator.isValid(null, null));
+    }
+
+    @Test
+    void mutatedDatesFollowTheGrammar() {
+        DateGmtValidator validator = new DateGmtValidator();
+
+        for (String date : mutatedDates()) {
+            assertEquals(matchesGrammar(date), validator.isValid(date, null), date);
+        }
+    }
+
+    @Test
+    void datesMatchTheFormatterOfJava8() {
+        assumeTrue("1.8".equals(System.getProperty("java.specification.version")),
+                "The offset grammar of ISO_OFFSET_DATE_TIME changed after Java 8");
+        DateGmtValidator validator = new DateGmtValidator();
+
+        for (String[] dates : new String[][]{VALID_DATES, INVALID_DATES}) {
+            for (String date : dates) {
+                assertEquals(parsesWithFormatter(date), validator.isValid(date, null), date);
+            }
+        }
+        for (String date : mutatedDates()) {
+            assertEquals(parsesWithFormatter(date), validator.isValid(date, null), date);
+        }
+    }
+
+    private static List<String> mutatedDates() {
+        Random random = new Random(42);
+        List<String> mutated = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            String[] dates = random.nextBoolean() ? VALID_DATES : INVALID_DATES;
+            StringBuilder date = new StringBuilder(dates[random.nextInt(dates.length)]);
+            int mutations = 1 + random.nextInt(3);
+            for (int m = 0; m < mutations && date.length() > 0; m++) {
+                int pos = random.nextInt(date.length());
+                char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+                switch (random.nextInt(3)) {
+                    case 0:
+                        date.setCharAt(pos, c);
+                        break;
+                    case 1:
+                        date.insert(pos, c);
+                        break;
+                    default:
+                        date.deleteCharAt(pos);
+                }
+            }
+            mutated.add(date.toString());
+        }
+        return mutated;
+    }
+
+    /**
+     * The implementation replaced by {@link DateGmtValidator}.
+     */
+    private static boolean parsesWithFormatter(String date) {
+        try {
+            LocalDateTime.parse(date, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static boolean matchesGrammar(String date) {
+        Matcher matcher = DATE_GRAMMAR.matcher(date);
+        if (!matcher.matches()) {
+            return false;
+        }
+        long year = Long.parseLong(matcher.group(1));
+        int month = Integer.parseInt(matcher.group(2));
+        int day = Integer.parseInt(matcher.group(3));
+        if (year > Year.MAX_VALUE || year < -Year.MAX_VALUE || (year == 0 && matcher.group(1).startsWith("-"))
+                || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return false;
+        }
+        if (Integer.parseInt(matcher.group(4)) > 23 || Integer.parseInt(matcher.group(5)) > 59
+                || field(matcher, 6) > 59) {
+            return false;
+        }
+        int offsetSeconds = field(matcher, 7) * 3600 + field(matcher, 8) * 60 + field(matcher, 9);
+        return field(matcher, 8) <= 59 && field(matcher, 9) <= 59 && offsetSeconds <= 18 * 3600;
+    }
+
+    private static int field(Matcher matcher, int group) {
+        return matcher.group(group) == null ? 0 : Integer.parseInt(matcher.group(group));
+    }
+}
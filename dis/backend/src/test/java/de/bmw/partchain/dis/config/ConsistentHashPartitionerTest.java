@@ -0,0 +1,80 @@
+package de.bmw.partchain.dis.config;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashPartitionerTest {
+
+    @Test
+    void matchesTheReferenceAlgorithm() {
+        // Values of the reference implementation of Lamping and Veach
+        int[] golden = {0, 55, 62, 8, 45, 59, 86, 97, 82, 59, 73, 37, 17, 56, 86, 21, 90, 37, 38, 83};
+        for (int key = 0; key < golden.length; key++) {
+            assertEquals(golden[key], ConsistentHashPartitioner.jumpConsistentHash(key, 100));
+        }
+        assertEquals(6, ConsistentHashPartitioner.jumpConsistentHash(10863919174838991L, 11));
+        assertEquals(3, ConsistentHashPartitioner.jumpConsistentHash(2016238256797177309L, 11));
+        assertEquals(5, ConsistentHashPartitioner.jumpConsistentHash(1673758223894951030L, 11));
+        assertEquals(80343, ConsistentHashPartitioner.jumpConsistentHash(2L, 100001));
+        assertEquals(22152, ConsistentHashPartitioner.jumpConsistentHash(2201L, 100001));
+        assertEquals(15018, ConsistentHashPartitioner.jumpConsistentHash(2202L, 100001));
+    }
+
+    @Test
+    void addingABucketOnlyMovesKeysToIt() {
+        Random random = new Random(42);
+        int keys = 100_000;
+        for (int buckets = 1; buckets < 64; buckets++) {
+            int moved = 0;
+            for (int i = 0; i < keys; i++) {
+                long key = random.nextInt() & 0xffffffffL;
+                int before = ConsistentHashPartitioner.jumpConsistentHash(key, buckets);
+                int after = ConsistentHashPartitioner.jumpConsistentHash(key, buckets + 1);
+                if (before != after) {
+                    assertEquals(buckets, after);
+                    moved++;
+                }
+            }
+            double expected = (double) keys / (buckets + 1);
+            assertTrue(Math.abs(moved - expected) < expected * 0.1 + 100, buckets + " buckets moved " + moved);
+        }
+    }
+
+    @Test
+    void unkeyedRecordsStickToAPartitionUntilANewBatch() {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int partition = 0; partition < 8; partition++) {
+            partitions.add(new PartitionInfo("MSP", partition, node, new Node[]{node}, new Node[]{node}));
+        }
+        Cluster cluster = new Cluster("cluster", Collections.singletonList(node), partitions,
+                Collections.emptySet(), Collections.emptySet());
+        ConsistentHashPartitioner partitioner = new ConsistentHashPartitioner();
+
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            used.add(partitioner.partition("MSP", null, null, null, null, cluster));
+        }
+        assertEquals(1, used.size());
+
+        int sticky = used.iterator().next();
+        partitioner.onNewBatch("MSP", cluster, sticky);
+        assertNotEquals(sticky, partitioner.partition("MSP", null, null, null, null, cluster));
+
+        byte[] key = "SN-1".getBytes(StandardCharsets.UTF_8);
+        assertEquals(partitioner.partition("MSP", "SN-1", key, null, null, cluster),
+                partitioner.partition("MSP", "SN-1", key, null, null, cluster));
+    }
+}
@@ -0,0 +1,26 @@
+package de.bmw.partchain.dis.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaProducerConfigTest {
+
+    @Test
+    void transactionsRequireIdempotentDeliveryToAllReplicas() {
+        KafkaProducerConfig.requireTransactionalDelivery(KafkaProducerProfile.THROUGHPUT.producerProperties());
+
+        assertThrows(IllegalStateException.class, () ->
+                KafkaProducerConfig.requireTransactionalDelivery(KafkaProducerProfile.LATENCY.producerProperties()));
+        assertThrows(IllegalStateException.class, () ->
+                KafkaProducerConfig.requireTransactionalDelivery(KafkaProducerProfile.DEFAULT.producerProperties()));
+
+        Map<String, Object> overridden = KafkaProducerProfile.LATENCY.producerProperties();
+        overridden.put(ProducerConfig.ACKS_CONFIG, "-1");
+        overridden.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        KafkaProducerConfig.requireTransactionalDelivery(overridden);
+    }
+}
@@ -0,0 +1,56 @@
+package de.bmw.partchain.dis.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    private final Bulkhead bulkhead = new Bulkhead("test", 2, 50);
+
+    @Test
+    void callOverTheLimitIsRejectedAfterTheMaximumWait() {
+        bulkhead.acquirePermission();
+        bulkhead.acquirePermission();
+
+        long start = System.nanoTime();
+        assertThrows(CallNotPermittedException.class, bulkhead::acquirePermission);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 45);
+        assertEquals(1, bulkhead.getRejectionCount());
+        // The rejected call took no permit
+        assertEquals(2, bulkhead.getActiveCalls());
+    }
+
+    @Test
+    void waitingCallGetsThePermitOfAFinishedCall() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 5000);
+        bulkhead.acquirePermission();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiting = new Thread(() -> {
+            bulkhead.acquirePermission();
+            acquired.countDown();
+        });
+        waiting.start();
+
+        assertFalse(acquired.await(50, TimeUnit.MILLISECONDS));
+        bulkhead.releasePermission();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, bulkhead.getActiveCalls());
+        assertEquals(0, bulkhead.getRejectionCount());
+    }
+
+    @Test
+    void interruptedCallIsRejected() {
+        bulkhead.acquirePermission();
+        bulkhead.acquirePermission();
+        Thread.currentThread().interrupt();
+
+        assertThrows(CallNotPermittedException.class, bulkhead::acquirePermission);
+        assertTrue(Thread.interrupted());
+        assertEquals(2, bulkhead.getActiveCalls());
+    }
+}
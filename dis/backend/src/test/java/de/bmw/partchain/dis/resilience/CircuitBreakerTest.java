@@ -0,0 +1,106 @@
+package de.bmw.partchain.dis.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 10, 4, 1000, 2, now::get);
+
+    @Test
+    void staysClosedBelowTheMinimumNumberOfCalls() {
+        for (int i = 0; i < 3; i++) {
+            call(false);
+        }
+        assertEquals(100f, circuitBreaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        call(false);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void opensOnceTheFailureRateOfTheWindowReachesTheThreshold() {
+        for (int i = 0; i < 10; i++) {
+            call(true);
+        }
+        for (int i = 0; i < 4; i++) {
+            call(false);
+        }
+        // The failures replaced successes in the window of the last 10 calls
+        assertEquals(40f, circuitBreaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        call(false);
+        assertEquals(50f, circuitBreaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void openCircuitBreakerRejectsCallsUntilTheOpenDurationPassed() {
+        open();
+
+        assertThrows(CallNotPermittedException.class, circuitBreaker::acquirePermission);
+        now.set(999);
+        assertThrows(CallNotPermittedException.class, circuitBreaker::acquirePermission);
+        assertEquals(2, circuitBreaker.getRejectionCount());
+
+        now.set(1000);
+        circuitBreaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpenCircuitBreakerOnlyPermitsTheTrialCalls() {
+        open();
+        now.set(1000);
+
+        circuitBreaker.acquirePermission();
+        circuitBreaker.acquirePermission();
+        assertThrows(CallNotPermittedException.class, circuitBreaker::acquirePermission);
+
+        // A released permission may be taken by another trial call
+        circuitBreaker.releasePermission();
+        circuitBreaker.acquirePermission();
+
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0f, circuitBreaker.getFailureRate());
+    }
+
+    @Test
+    void failedTrialCallOpensTheCircuitBreakerAgain() {
+        open();
+        now.set(1000);
+
+        circuitBreaker.acquirePermission();
+        circuitBreaker.onError();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        now.set(1999);
+        assertThrows(CallNotPermittedException.class, circuitBreaker::acquirePermission);
+        assertEquals(3, circuitBreaker.getTransitionCount());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private void call(boolean success) {
+        circuitBreaker.acquirePermission();
+        if (success) {
+            circuitBreaker.onSuccess();
+        } else {
+            circuitBreaker.onError();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package de.bmw.partchain.dis.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 2, 50, 1.5, 0.5, 10);
+
+    @Test
+    void acquiresUpToTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+
+        limit.release();
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void growsUpToTwiceTheUsedConcurrencyWhileLatencyIsStable() {
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+        }
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(10 * MILLIS);
+        }
+
+        assertEquals(21, limit.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileIdle() {
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(10 * MILLIS);
+        }
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        limit.onSample(10 * MILLIS);
+        limit.onSample(100 * MILLIS);
+        assertEquals(9, limit.getLimit());
+
+        limit.onSample(100 * MILLIS);
+        assertEquals(8, limit.getLimit());
+    }
+}
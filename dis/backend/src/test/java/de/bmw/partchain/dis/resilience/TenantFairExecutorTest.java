@@ -0,0 +1,121 @@
+package de.bmw.partchain.dis.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantFairExecutorTest {
+
+    private final List<String> order = new CopyOnWriteArrayList<>();
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    @Test
+    void tenantsTakeTurnsByWeight() throws InterruptedException {
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("B", 2);
+        TenantFairExecutor executor = new TenantFairExecutor("test-", 1, 100, 0, weights, false, 5000);
+        executor.execute("X", this::block);
+        for (int i = 0; i < 4; i++) {
+            executor.execute("A", () -> order.add("A"));
+        }
+        for (int i = 0; i < 4; i++) {
+            executor.execute("B", () -> order.add("B"));
+        }
+        assertEquals(4L, executor.getQueueDepths().get("A"));
+
+        blocked.countDown();
+        awaitOrder(8);
+
+        assertEquals(Arrays.asList("A", "B", "B", "A", "B", "B", "A", "A"), order);
+        executor.shutdown();
+    }
+
+    @Test
+    void runningTasksOfATenantAreLimited() throws InterruptedException {
+        TenantFairExecutor executor = new TenantFairExecutor("test-", 2, 100, 1, Collections.emptyMap(), false, 5000);
+        executor.execute("A", this::block);
+        executor.execute("A", () -> order.add("A"));
+        executor.execute("B", () -> order.add("B"));
+        awaitOrder(1);
+
+        assertEquals(Collections.singletonList("B"), order);
+        assertEquals(1L, executor.getQueueDepths().get("A"));
+
+        blocked.countDown();
+        awaitOrder(2);
+        assertEquals(Arrays.asList("B", "A"), order);
+        executor.shutdown();
+    }
+
+    @Test
+    void tasksOverCapacityAreRejected() {
+        TenantFairExecutor executor = new TenantFairExecutor("test-", 1, 1, 0, Collections.emptyMap(), false, 5000);
+        executor.execute("A", this::block);
+        waitUntilEmpty(executor);
+        executor.execute("A", () -> order.add("A"));
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute("B", () -> order.add("B")));
+        blocked.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void shutdownRunsTheQueuedTasks() {
+        TenantFairExecutor executor = new TenantFairExecutor("test-", 1, 100, 0, Collections.emptyMap(), false, 5000);
+        executor.execute("A", this::block);
+        executor.execute("A", () -> order.add("A"));
+        executor.execute("B", () -> order.add("B"));
+        blocked.countDown();
+
+        assertEquals(0, executor.shutdown());
+        assertEquals(2, order.size());
+        assertTrue(order.containsAll(Arrays.asList("A", "B")));
+        assertThrows(RejectedExecutionException.class, () -> executor.execute("A", () -> order.add("A")));
+    }
+
+    @Test
+    void shutdownDropsTheTasksStillQueuedAfterTheTimeout() throws InterruptedException {
+        TenantFairExecutor executor = new TenantFairExecutor("test-", 1, 100, 0, Collections.emptyMap(), false, 50);
+        executor.execute("A", this::block);
+        waitUntilEmpty(executor);
+        executor.execute("A", () -> order.add("A"));
+        executor.execute("B", () -> order.add("B"));
+
+        assertEquals(2, executor.shutdown());
+        assertEquals(0, executor.getQueuedCount());
+        blocked.countDown();
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(Collections.emptyList(), order);
+    }
+
+    private void awaitOrder(int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (order.size() < size && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private void waitUntilEmpty(TenantFairExecutor executor) {
+        while (executor.getQueuedCount() > 0) {
+            Thread.yield();
+        }
+    }
+
+    private void block() {
+        try {
+            blocked.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
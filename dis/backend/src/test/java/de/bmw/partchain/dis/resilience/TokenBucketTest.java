@@ -0,0 +1,42 @@
+package de.bmw.partchain.dis.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final TokenBucket bucket = new TokenBucket(100, 1000, now::get);
+
+    @Test
+    void burstIsGrantedAndThenRefilledAtTheRate() {
+        assertEquals(0, bucket.tryAcquire(600));
+        assertEquals(0, bucket.tryAcquire(500));
+        assertEquals(1000, bucket.tryAcquire(1));
+
+        now.set(2000);
+        assertEquals(0, bucket.tryAcquire(150));
+        assertEquals(500, bucket.tryAcquire(1));
+    }
+
+    @Test
+    void largeCallGoesIntoDebt() {
+        assertEquals(0, bucket.tryAcquire(5000));
+        assertEquals(40_000, bucket.tryAcquire(1));
+
+        now.set(39_999);
+        assertEquals(1, bucket.tryAcquire(1));
+        now.set(40_001);
+        assertEquals(0, bucket.tryAcquire(1));
+    }
+
+    @Test
+    void idleBucketIsNotFilledAboveItsCapacity() {
+        now.set(1_000_000);
+        assertEquals(0, bucket.tryAcquire(1100));
+        assertEquals(1000, bucket.tryAcquire(1));
+    }
+}